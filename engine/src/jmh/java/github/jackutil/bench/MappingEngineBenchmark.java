@@ -5,6 +5,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -15,16 +17,26 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import github.jackutil.compiler.CompiledMapping;
 import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.ExecutionBackend;
+import github.jackutil.compiler.runtime.BatchFormat;
 import github.jackutil.compiler.runtime.MappingEngine;
 
 @BenchmarkMode(Mode.Throughput)
@@ -32,6 +44,7 @@ import github.jackutil.compiler.runtime.MappingEngine;
 @Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
 @Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
 public class MappingEngineBenchmark {
+    private static final int BATCH_SIZE = 1_000;
 
     @State(Scope.Benchmark)
     public static class EngineState {
@@ -51,13 +64,21 @@ public class MappingEngineBenchmark {
 
         private final JsonFactory factory = new JsonFactory();
 
-        @Param({"refs", "arrays", "builtins", "constants"})
+        @Param({"refs", "arrays", "builtins", "constants", "wide"})
         public String fixture;
 
+        /**
+         * Compares the opcode interpreter with generated hidden classes on every fixture.
+         */
+        @Param({"INTERPRETER", "BYTECODE"})
+        public ExecutionBackend backend;
+
         MappingEngine engine;
         Map<String, Object> inputs;
         String mappingName;
         Map<String, Object> payload;
+        List<Map<String, Object>> batch;
+
         @Setup(Level.Trial)
         public void setup() throws Exception {
             switch (fixture) {
@@ -65,6 +86,11 @@ public class MappingEngineBenchmark {
                 case "arrays" -> init(ARRAYS_MAPPING, "root", Map.of(), Map.of());
                 case "builtins" -> init(BUILTINS_MAPPING, "root", Map.of(), Map.of());
                 case "constants" -> init(CONSTANTS_MAPPING, "root", Map.of(), Map.of());
+                case "wide" -> init(WIDE_MAPPING, "root", Map.of("tenantId", "TENANT-1"), Map.of(
+                    "batchId", "BATCH-0001",
+                    "partNumber", "PN-4711",
+                    "quantity", 25,
+                    "site", "Plant North"));
                 default -> throw new IllegalArgumentException("Unknown fixture: " + fixture);
             }
         }
@@ -74,6 +100,7 @@ public class MappingEngineBenchmark {
             this.mappingName = mappingName;
             this.inputs = inputs;
             this.payload = payload;
+            this.batch = Collections.nCopies(BATCH_SIZE, payload);
         }
 
         MappingEngine engine() {
@@ -87,11 +114,29 @@ public class MappingEngineBenchmark {
         private CompiledMapping compile(String json) throws Exception {
             byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
             try (InputStream in = new ByteArrayInputStream(bytes)) {
-                return ConfigCompiler.compile(in);
+                return ConfigCompiler.compile(in, backend);
             }
         }
     }
 
+    /**
+     * Keeps one generator per benchmark thread so the allocation profile isolates the engine from generator setup.
+     */
+    @State(Scope.Thread)
+    public static class GeneratorState {
+        JsonGenerator generator;
+
+        @Setup(Level.Trial)
+        public void setup(EngineState engineState) throws IOException {
+            generator = engineState.newGenerator();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            generator.close();
+        }
+    }
+
     @Benchmark
     public void execute(EngineState state) throws IOException {
         JsonGenerator generator = state.newGenerator();
@@ -104,7 +149,46 @@ public class MappingEngineBenchmark {
         }
     }
 
-    private static final String REFS_MAPPING = """
+    /**
+     * Steady-state allocation probe. Run with {@code -prof gc} (or through {@link #main}) and read
+     * {@code gc.alloc.rate.norm}, which reports bytes allocated per execution with the generator reused.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void executeReusingGenerator(EngineState state, GeneratorState generatorState) throws IOException {
+        state.engine().execute(state.mappingName, state.inputs, state.payload, generatorState.generator);
+    }
+
+    /**
+     * {@link #executeReusingGenerator} on every core against the one shared engine. With the {@code builtins}
+     * fixture this measures the generating builtins under contention: the shared time caches and the UUID source.
+     */
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void executeContended(EngineState state, GeneratorState generatorState) throws IOException {
+        state.engine().execute(state.mappingName, state.inputs, state.payload, generatorState.generator);
+    }
+
+    /**
+     * Same records as {@link #execute}, but handed to the engine as one NDJSON batch; scores are per record.
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void executeBatch(EngineState state) throws IOException {
+        state.engine().executeBatch(state.mappingName, state.inputs, state.batch, EngineState.NULL_OUTPUT, BatchFormat.NDJSON);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(MappingEngineBenchmark.class.getSimpleName() + ".executeReusingGenerator")
+            .addProfiler(GCProfiler.class)
+            .forks(1)
+            .build();
+        new Runner(options).run();
+    }
+
+    static final String REFS_MAPPING = """
             {
               "META": {
                 "dslVersion": "v2",
@@ -149,7 +233,7 @@ public class MappingEngineBenchmark {
             }
             """;
 
-    private static final String ARRAYS_MAPPING = """
+    static final String ARRAYS_MAPPING = """
             {
               "META": {
                 "dslVersion": "v2",
@@ -191,7 +275,7 @@ public class MappingEngineBenchmark {
             }
             """;
 
-    private static final String BUILTINS_MAPPING = """
+    static final String BUILTINS_MAPPING = """
             {
               "META": {
                 "dslVersion": "v2",
@@ -213,7 +297,9 @@ public class MappingEngineBenchmark {
                   "fn": "lookup",
                   "args": [ { "A": "Amber", "B": "Blue" }, "Unknown" ]
                 },
-                "adder": { "type": "builtin", "fn": "add" }
+                "adder": { "type": "builtin", "fn": "add" },
+                "date": { "type": "builtin", "fn": "date" },
+                "dateUtc": { "type": "builtin", "fn": "date_utc" }
               },
               "VARIABLES": {
                 "generatedId": {
@@ -235,6 +321,14 @@ public class MappingEngineBenchmark {
                 "sum": {
                   "type": "number",
                   "derive": { "function": "$FUNCTIONS.adder", "args": [ 1, 2, 3 ] }
+                },
+                "createdAt": {
+                  "type": "string",
+                  "derive": { "function": "$FUNCTIONS.dateUtc" }
+                },
+                "createdDay": {
+                  "type": "string",
+                  "derive": { "function": "$FUNCTIONS.date", "args": [ "yyyy-MM-dd" ] }
                 }
               },
               "MAPPINGS": {
@@ -245,7 +339,9 @@ public class MappingEngineBenchmark {
                     "padded": "$VARIABLES.padded",
                     "label": "$VARIABLES.label",
                     "color": "$VARIABLES.color",
-                    "sum": "$VARIABLES.sum"
+                    "sum": "$VARIABLES.sum",
+                    "createdAt": "$VARIABLES.createdAt",
+                    "createdDay": "$VARIABLES.createdDay"
                   }
                 }
               },
@@ -253,7 +349,7 @@ public class MappingEngineBenchmark {
             }
             """;
 
-    private static final String CONSTANTS_MAPPING = """
+    static final String CONSTANTS_MAPPING = """
             {
               "META": {
                 "dslVersion": "v2",
@@ -299,8 +395,76 @@ public class MappingEngineBenchmark {
               "VALIDATION": {}
             }
             """;
-}
-
-
-
 
+    /**
+     * Batch-style aspect with many short fields around a handful of payload values, so field-name encoding
+     * dominates the cost of each execution.
+     */
+    static final String WIDE_MAPPING = """
+            {
+              "META": {
+                "dslVersion": "v2",
+                "name": "wide",
+                "targetAspect": "urn:samm:io.catenax.batch:3.0.0#Batch"
+              },
+              "ENGINE": {
+                "api": "v2",
+                "output": "$MAPPINGS.root"
+              },
+              "INPUT": {
+                "tenantId": { "type": "string", "required": true }
+              },
+              "SCHEMA": {},
+              "FUNCTIONS": {},
+              "VARIABLES": {
+                "batchId": { "type": "string", "required": true },
+                "partNumber": { "type": "string", "required": true },
+                "quantity": { "type": "integer", "required": true },
+                "site": { "type": "string", "default": "unknown" }
+              },
+              "MAPPINGS": {
+                "root": {
+                  "REF": "root",
+                  "MAP": {
+                    "catenaXId": "$VARIABLES.batchId",
+                    "tenant": "$INPUT.tenantId",
+                    "localIdentifiers": {
+                      "batchId": "$VARIABLES.batchId",
+                      "partNumber": "$VARIABLES.partNumber",
+                      "manufacturerId": "BPNL000000000001",
+                      "customerPartId": "$VARIABLES.partNumber"
+                    },
+                    "manufacturingInformation": {
+                      "date": "2024-05-01",
+                      "country": "DEU",
+                      "site": "$VARIABLES.site",
+                      "sequence": "$VARIABLES.quantity"
+                    },
+                    "partTypeInformation": {
+                      "manufacturerPartId": "$VARIABLES.partNumber",
+                      "nameAtManufacturer": "$VARIABLES.site",
+                      "classification": "product",
+                      "revision": "A"
+                    },
+                    "quantity": "$VARIABLES.quantity",
+                    "unit": "unit:piece",
+                    "owner": "$INPUT.tenantId",
+                    "batchNumber": "$VARIABLES.batchId",
+                    "partNumber": "$VARIABLES.partNumber",
+                    "plant": "$VARIABLES.site",
+                    "status": "released",
+                    "origin": "DE",
+                    "hazardous": false,
+                    "recyclable": true,
+                    "schemaVersion": "3.0.0",
+                    "source": "mes",
+                    "createdBy": "$INPUT.tenantId",
+                    "lotReference": "$VARIABLES.batchId",
+                    "siteReference": "$VARIABLES.site"
+                  }
+                }
+              },
+              "VALIDATION": {}
+            }
+            """;
+}
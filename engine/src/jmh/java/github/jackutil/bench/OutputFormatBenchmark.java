@@ -0,0 +1,129 @@
+package github.jackutil.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.runtime.BatchFormat;
+import github.jackutil.compiler.runtime.MappingEngine;
+import github.jackutil.compiler.runtime.OutputFormat;
+
+/**
+ * JSON against the binary output formats on the {@link MappingEngineBenchmark} fixtures. The throughput scores are
+ * per record; the {@code bytesPerRecord} counter is the encoded size of one record, measured on a single execution
+ * and on a batch, where Smile back-references pay off across records.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class OutputFormatBenchmark {
+    private static final int BATCH_SIZE = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class FormatState {
+        @Param({"refs", "arrays", "builtins", "constants", "wide"})
+        public String fixture;
+
+        @Param({"JSON", "SMILE", "CBOR"})
+        public OutputFormat format;
+
+        MappingEngine engine;
+        Map<String, Object> inputs;
+        Map<String, Object> payload;
+        List<Map<String, Object>> batch;
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            switch (fixture) {
+                case "refs" -> init(MappingEngineBenchmark.REFS_MAPPING, Map.of(), Map.of("id", "ABC"));
+                case "arrays" -> init(MappingEngineBenchmark.ARRAYS_MAPPING, Map.of(), Map.of());
+                case "builtins" -> init(MappingEngineBenchmark.BUILTINS_MAPPING, Map.of(), Map.of());
+                case "constants" -> init(MappingEngineBenchmark.CONSTANTS_MAPPING, Map.of(), Map.of());
+                case "wide" -> init(MappingEngineBenchmark.WIDE_MAPPING, Map.of("tenantId", "TENANT-1"), Map.of(
+                    "batchId", "BATCH-0001",
+                    "partNumber", "PN-4711",
+                    "quantity", 25,
+                    "site", "Plant North"));
+                default -> throw new IllegalArgumentException("Unknown fixture: " + fixture);
+            }
+        }
+
+        private void init(String json, Map<String, Object> inputs, Map<String, Object> payload) throws Exception {
+            try (InputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8))) {
+                this.engine = new MappingEngine(ConfigCompiler.compile(in));
+            }
+            this.inputs = inputs;
+            this.payload = payload;
+            this.batch = Collections.nCopies(BATCH_SIZE, payload);
+        }
+
+        BatchFormat batchFormat() {
+            return format.textual() ? BatchFormat.NDJSON : BatchFormat.SEQUENCE;
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long bytesPerRecord;
+        public long bytesPerBatchRecord;
+
+        @Setup(Level.Iteration)
+        public void measure(FormatState state) throws IOException {
+            CountingOutputStream single = new CountingOutputStream();
+            state.engine.execute("root", state.inputs, state.payload, single, state.format);
+            bytesPerRecord = single.count;
+            CountingOutputStream batch = new CountingOutputStream();
+            state.engine.executeBatch("root", state.inputs, state.batch, batch, state.batchFormat(), state.format);
+            bytesPerBatchRecord = batch.count / BATCH_SIZE;
+        }
+    }
+
+    @Benchmark
+    public void execute(FormatState state, EncodedSize size) throws IOException {
+        state.engine.execute("root", state.inputs, state.payload, OutputStream.nullOutputStream(), state.format);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void executeBatch(FormatState state, EncodedSize size) throws IOException {
+        state.engine.executeBatch("root", state.inputs, state.batch, OutputStream.nullOutputStream(),
+            state.batchFormat(), state.format);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
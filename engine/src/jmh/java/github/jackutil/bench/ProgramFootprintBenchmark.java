@@ -0,0 +1,77 @@
+package github.jackutil.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.compiler.CompiledMapping;
+import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.ir.MappingProgram;
+
+/**
+ * Compile cost and retained heap of instruction programs. The throughput score is compilation of the wide fixture;
+ * the {@code retainedBytesPerProgram} counter is the heap held by one {@link MappingProgram} after a full GC,
+ * measured over a batch of programs kept alive for the iteration.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class ProgramFootprintBenchmark {
+    private static final int PROGRAMS = 2_000;
+    private static final byte[] WIDE = MappingEngineBenchmark.WIDE_MAPPING.getBytes(StandardCharsets.UTF_8);
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long retainedBytesPerProgram;
+
+        @Setup(Level.Iteration)
+        public void measure() throws Exception {
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            long before = usedAfterGc(memory);
+            List<MappingProgram> retained = new ArrayList<>(PROGRAMS);
+            for (int i = 0; i < PROGRAMS; i++) {
+                retained.add(compile().program());
+            }
+            long after = usedAfterGc(memory);
+            Reference.reachabilityFence(retained);
+            retainedBytesPerProgram = (after - before) / PROGRAMS;
+        }
+
+        private static long usedAfterGc(MemoryMXBean memory) {
+            System.gc();
+            System.gc();
+            return memory.getHeapMemoryUsage().getUsed();
+        }
+    }
+
+    @Benchmark
+    public CompiledMapping compileWide(Footprint footprint) throws Exception {
+        return compile();
+    }
+
+    private static CompiledMapping compile() throws Exception {
+        try (InputStream in = new ByteArrayInputStream(WIDE)) {
+            return ConfigCompiler.compile(in);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package github.jackutil.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.EngineCLI;
+
+/**
+ * End-to-end CLI conversion of a generated one-million-record NDJSON file with the wide fixture. Each invocation
+ * is a full {@code EngineCLI} run, so the score includes parsing, mapping and writing; compare the {@code threads}
+ * values to see how the record pipeline scales with cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class RecordPipelineBenchmark {
+    private static final int RECORDS = 1_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean unordered;
+
+    private Path directory;
+    private String[] args;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("jme-pipeline");
+        Path config = Files.writeString(directory.resolve("config.json"), MappingEngineBenchmark.WIDE_MAPPING);
+        Path input = Files.writeString(directory.resolve("input.json"), "{\"tenantId\":\"TENANT-1\"}");
+        Path payload = directory.resolve("payload.ndjson");
+        try (BufferedWriter writer = Files.newBufferedWriter(payload, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < RECORDS; i++) {
+                writer.write("{\"batchId\":\"BATCH-" + i + "\",\"partNumber\":\"PN-" + (i % 9973)
+                    + "\",\"quantity\":" + (i % 500) + ",\"site\":\"Plant " + (i % 7) + "\"}\n");
+            }
+        }
+        args = new String[]{
+            "--config", config.toString(),
+            "--mapping", "root",
+            "--input", input.toString(),
+            "--payload", payload.toString(),
+            "--payload-format", "ndjson",
+            "--output", directory.resolve("output.ndjson").toString(),
+            "--threads", Integer.toString(threads)
+        };
+        // The CLI rejects --unordered on a single thread, where it would change nothing anyway.
+        if (unordered && threads > 1) {
+            args = Stream.concat(Stream.of(args), Stream.of("--unordered")).toArray(String[]::new);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void convert() {
+        EngineCLI.main(args);
+    }
+}
@@ -0,0 +1,60 @@
+package github.jackutil.compiler.runtime;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.enums.FunctionKind;
+
+/**
+ * Cost of one arithmetic builtin call. Lives in the runtime package because builtins with literal arguments are
+ * folded at compile time, so a mapping-level benchmark would never call them. {@code operands} selects the path:
+ * {@code long} takes the overflow-checked fast path, {@code overflow} falls back to {@code BigDecimal} wherever
+ * the operation overflows, and {@code decimal} is decimal arithmetic throughout. Arguments are passed as a compiled
+ * argument vector, as variable derives do. Run with {@code -prof gc} to compare allocation per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class BuiltinArithmeticBenchmark {
+
+    @Param({"add", "subtract", "multiply", "min", "max", "abs"})
+    public String builtin;
+
+    @Param({"long", "overflow", "decimal"})
+    public String operands;
+
+    private BuiltinFunctionRuntime runtime;
+    private Object[] args;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        runtime = new BuiltinFunctionRuntime(new FunctionDef(0, builtin, FunctionKind.BUILTIN, builtin, List.of(), null));
+        args = switch (operands) {
+            case "long" -> new Object[] {-12L, 30, 7L};
+            case "overflow" -> new Object[] {Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+            case "decimal" -> new Object[] {new BigDecimal("-12.5"), 30, 7.25};
+            default -> throw new IllegalArgumentException("Unknown operands: " + operands);
+        };
+    }
+
+    @Benchmark
+    public Object derive() {
+        return runtime.derive(args);
+    }
+}
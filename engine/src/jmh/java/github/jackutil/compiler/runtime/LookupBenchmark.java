@@ -0,0 +1,78 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.enums.FunctionKind;
+
+/**
+ * Cost of one {@code lookup} call against the parsed {@code LinkedHashMap} ({@code table=map}) and against the
+ * {@link LookupTable} the plan compiles it to ({@code table=compiled}). Each invocation probes the next key of a
+ * shuffled sequence in which one key in four misses, so neither hits nor misses are perfectly predicted.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class LookupBenchmark {
+    private static final int PROBES = 1 << 12;
+
+    @Param({"16", "4096"})
+    public int size;
+
+    @Param({"map", "compiled"})
+    public String table;
+
+    private BuiltinFunctionRuntime runtime;
+    private Object[][] calls;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            entries.put(key(i), "value" + i);
+        }
+        Object argument = switch (table) {
+            case "map" -> entries;
+            case "compiled" -> LookupTable.of(entries);
+            default -> throw new IllegalArgumentException("Unknown table: " + table);
+        };
+        runtime = new BuiltinFunctionRuntime(new FunctionDef(0, "lookup", FunctionKind.BUILTIN, "lookup", List.of(), null));
+        calls = new Object[PROBES][];
+        long seed = 0x5DEECE66DL;
+        for (int i = 0; i < PROBES; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int index = (int) ((seed >>> 33) % (size + size / 3 + 1));
+            // Build each key afresh so hits compare equal strings rather than the same instance.
+            calls[i] = new Object[] {new String(key(index)), argument, "none"};
+        }
+    }
+
+    @Benchmark
+    public Object derive() {
+        Object[] call = calls[next];
+        next = (next + 1) & (PROBES - 1);
+        return runtime.derive(call);
+    }
+
+    private static String key(int index) {
+        return "code-" + index;
+    }
+}
@@ -0,0 +1,87 @@
+package github.jackutil.compiler.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of one regex constraint check for each regex function of {@code config_v2.json}. {@code engine=regex} runs
+ * {@code pattern.matcher(value).matches()} as constraints did before, {@code engine=scanner} the
+ * {@link PatternScanner} that {@link RegexFunctionRuntime} now compiles from the same pattern. Values alternate
+ * between one that passes and one that fails at its last character, the longest path for both. Run with
+ * {@code -prof gc} to see the {@code Matcher} allocation disappear.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class RegexConstraintBenchmark {
+
+    @Param({"uuidV4", "alphaNumericUpper", "bpns"})
+    public String function;
+
+    @Param({"regex", "scanner"})
+    public String engine;
+
+    private Pattern pattern;
+    private PatternScanner scanner;
+    private boolean useScanner;
+    private String[] values;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        pattern = Pattern.compile(sampleConfigPattern(function));
+        scanner = PatternScanner.compile(pattern);
+        if (scanner == null) {
+            throw new IllegalStateException("No scanner for " + pattern.pattern());
+        }
+        useScanner = switch (engine) {
+            case "regex" -> false;
+            case "scanner" -> true;
+            default -> throw new IllegalArgumentException("Unknown engine: " + engine);
+        };
+        values = switch (function) {
+            case "uuidV4" -> new String[] {"550e8400-E29B-41d4-a716-446655440000", "550e8400-e29b-41d4-a716-44665544000x"};
+            case "alphaNumericUpper" -> new String[] {"MPN4711BATCH2024", "MPN4711BATCH202x"};
+            case "bpns" -> new String[] {"BPNS000000AB", "BPNS0000004a"};
+            default -> throw new IllegalArgumentException("Unknown function: " + function);
+        };
+    }
+
+    @Benchmark
+    public boolean matches() {
+        String value = values[next];
+        next ^= 1;
+        return useScanner ? scanner.matches(value) : pattern.matcher(value).matches();
+    }
+
+    private static String sampleConfigPattern(String function) throws IOException {
+        try (InputStream in = RegexConstraintBenchmark.class.getClassLoader().getResourceAsStream("config_v2.json")) {
+            if (in == null) {
+                throw new IllegalStateException("config_v2.json not on the classpath");
+            }
+            JsonNode node = new ObjectMapper().readTree(in).path("FUNCTIONS").path(function).path("pattern");
+            if (!node.isTextual()) {
+                throw new IllegalStateException("No regex function " + function + " in config_v2.json");
+            }
+            return node.asText();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.enums.FunctionKind;
+
+/**
+ * Steady-state cost of {@link RegexFunctionRuntime#validate} for a passing value, with one runtime shared by all
+ * cores as in an engine. {@code keys} and {@code timestamp} are constraints from {@code config.json} that need the
+ * regex engine and so go through the per-thread {@code Matcher}; {@code bpns} is compiled to a
+ * {@link PatternScanner}. Run with {@code -prof gc}: {@code gc.alloc.rate.norm} should be {@code 0 B/op} for every
+ * pattern.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(Threads.MAX)
+public class RegexValidateBenchmark {
+
+    @Param({"keys", "timestamp", "bpns"})
+    public String constraint;
+
+    private RegexFunctionRuntime runtime;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String regex = switch (constraint) {
+            case "keys" -> "^(manufacturerId|batchId|customKey:\\w+)$";
+            case "timestamp" -> "^(?:[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9]{2}:[0-9]{2}:[0-9]{2}(?:[.][0-9]+)?Z"
+                + "|[0-9]{4}-[0-9]{2}-[0-9]{2}(?:T[0-9]{2}:[0-9]{2}:[0-9]{2}(?:[.][0-9]+)?(?:Z|[+-][0-9]{2}:[0-9]{2}))?)$";
+            case "bpns" -> "^BPNS[a-zA-Z0-9]{12}$";
+            default -> throw new IllegalArgumentException("Unknown constraint: " + constraint);
+        };
+        value = switch (constraint) {
+            case "keys" -> "customKey:lot_7";
+            case "timestamp" -> "2024-05-01T10:15:30.250+02:00";
+            default -> "BPNS0000000000AB";
+        };
+        Pattern pattern = Pattern.compile(regex);
+        runtime = new RegexFunctionRuntime(new FunctionDef(0, constraint, FunctionKind.REGEX, pattern, List.of(), null));
+    }
+
+    @Benchmark
+    public void validate() {
+        runtime.validate(value);
+    }
+}
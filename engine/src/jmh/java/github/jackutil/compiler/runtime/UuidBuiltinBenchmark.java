@@ -0,0 +1,53 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.enums.FunctionKind;
+
+/**
+ * Throughput of the {@code uuid} builtins with one runtime shared by every benchmark thread, as an engine shares
+ * its functions across a request pool. Runs on all available cores by default; pass {@code -t} to vary the thread
+ * count and watch {@code secure} flatten out under contention while the per-thread sources scale.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(Threads.MAX)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+public class UuidBuiltinBenchmark {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    @Param({"uuid", "uuid_compact", "uuid_urn"})
+    public String builtin;
+
+    @Param({"SECURE", "RANDOM", "TIME_ORDERED"})
+    public UuidSource source;
+
+    private BuiltinFunctionRuntime runtime;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        runtime = new BuiltinFunctionRuntime(new FunctionDef(0, builtin, FunctionKind.BUILTIN, builtin, List.of(), null), source);
+    }
+
+    @Benchmark
+    public Object derive() {
+        return runtime.derive(NO_ARGS);
+    }
+}
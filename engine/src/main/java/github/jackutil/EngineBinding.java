@@ -4,7 +4,10 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedHashSet;
@@ -12,18 +15,26 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedOutputStream;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 import github.jackutil.compiler.CompiledMapping;
 import github.jackutil.compiler.ConfigCompiler;
 import github.jackutil.compiler.ConfigValidationException;
 import github.jackutil.compiler.ConfigValidator;
 import github.jackutil.compiler.ir.resolved.ResolvedInput;
+import github.jackutil.compiler.runtime.BatchFormat;
+import github.jackutil.compiler.runtime.BatchResult;
 import github.jackutil.compiler.runtime.MappingEngine;
+import github.jackutil.compiler.runtime.OutputFormat;
 import github.jackutil.compiler.runtime.validation.ResultValidator;
+import github.jackutil.io.DirectBufferOutputStream;
 
 public final class EngineBinding {
     private static final ObjectMapper MAPPER = new ObjectMapper();
@@ -71,19 +82,207 @@ public final class EngineBinding {
         Map<String, Object> safeInputs = inputs != null ? inputs : Map.of();
         Map<String, Object> safePayload = payload != null ? payload : Map.of();
 
-        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        try (JsonGenerator generator = MAPPER.getFactory().createGenerator(buffer)) {
-            engine.execute(mappingName, safeInputs, safePayload, generator);
-            generator.flush();
+        OutputBuffer buffer = OutputBuffer.acquire();
+        Map<String, Object> output;
+        Supplier<Map<String, Object>> variables;
+        try {
+            try (JsonGenerator generator = MAPPER.getFactory().createGenerator(buffer)) {
+                variables = engine.executeRetainingVariables(mappingName, safeInputs, safePayload, generator);
+                generator.flush();
+            }
+            output = buffer.size() == 0 ? Map.of() : Map.copyOf(buffer.readMap());
+        } finally {
+            buffer.release();
         }
-        Map<String, Object> output = buffer.size() == 0
-            ? Map.of()
-            : Map.copyOf(MAPPER.readValue(buffer.toByteArray(), MAP_TYPE));
         if (mode == ValidationMode.ENABLED) {
             resultValidator.validate(output);
         }
-        String variablesJson = MAPPER.writeValueAsString(engine.variablesSnapshot());
-        return new ExecutionResult(compiled, output, variablesJson);
+        return new ExecutionResult(compiled, output, VariablesJson.deferred(variables));
+    }
+
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          OutputStream target) throws IOException {
+        executeTo(mappingName, inputs, payload, target, ValidationMode.ENABLED);
+    }
+
+    /**
+     * Streams the mapping output to {@code target} without building an output map. The stream is flushed but
+     * not closed. When validation is enabled the output is buffered as tokens first, so nothing reaches
+     * {@code target} if the result fails its schema checks.
+     */
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          OutputStream target,
+                          ValidationMode validationMode) throws IOException {
+        executeTo(mappingName, inputs, payload, target, OutputFormat.JSON, validationMode);
+    }
+
+    /**
+     * Streams the mapping output to {@code target} encoded as {@code format}; otherwise the same as the JSON
+     * variant above.
+     */
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          OutputStream target,
+                          OutputFormat format,
+                          ValidationMode validationMode) throws IOException {
+        Objects.requireNonNull(target, "target");
+        OutputFormat safeFormat = format != null ? format : OutputFormat.JSON;
+        try (JsonGenerator generator = safeFormat.factory().createGenerator(target)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            executeTo(mappingName, inputs, payload, generator, validationMode);
+        }
+    }
+
+    public int executeTo(String mappingName,
+                         Map<String, Object> inputs,
+                         Map<String, Object> payload,
+                         ByteBuffer target) throws IOException {
+        return executeTo(mappingName, inputs, payload, target, ValidationMode.ENABLED);
+    }
+
+    /**
+     * Writes the UTF-8 encoded output into {@code target} starting at its position and returns the number of
+     * bytes written. Throws {@link java.nio.BufferOverflowException} when the buffer has too little room left.
+     */
+    public int executeTo(String mappingName,
+                         Map<String, Object> inputs,
+                         Map<String, Object> payload,
+                         ByteBuffer target,
+                         ValidationMode validationMode) throws IOException {
+        Objects.requireNonNull(target, "target");
+        int start = target.position();
+        executeTo(mappingName, inputs, payload, new ByteBufferBackedOutputStream(target), validationMode);
+        return target.position() - start;
+    }
+
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          WritableByteChannel target) throws IOException {
+        executeTo(mappingName, inputs, payload, target, ValidationMode.ENABLED);
+    }
+
+    /**
+     * Writes the UTF-8 encoded output to a blocking channel through pooled direct buffers, using gathering writes
+     * where the channel supports them. The channel is left open.
+     */
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          WritableByteChannel target,
+                          ValidationMode validationMode) throws IOException {
+        Objects.requireNonNull(target, "target");
+        try (DirectBufferOutputStream out = new DirectBufferOutputStream(target)) {
+            executeTo(mappingName, inputs, payload, out, validationMode);
+        }
+    }
+
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          JsonGenerator generator) throws IOException {
+        executeTo(mappingName, inputs, payload, generator, ValidationMode.ENABLED);
+    }
+
+    /**
+     * Writes the mapping output to a caller-owned generator, which is neither flushed nor closed.
+     */
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          Map<String, Object> payload,
+                          JsonGenerator generator,
+                          ValidationMode validationMode) throws IOException {
+        Objects.requireNonNull(mappingName, "mappingName");
+        Objects.requireNonNull(generator, "generator");
+        ValidationMode mode = validationMode != null ? validationMode : ValidationMode.ENABLED;
+        Map<String, Object> safeInputs = inputs != null ? inputs : Map.of();
+        Map<String, Object> safePayload = payload != null ? payload : Map.of();
+
+        if (mode == ValidationMode.DISABLED || !resultValidator.hasChecks()) {
+            engine.execute(mappingName, safeInputs, safePayload, generator);
+            return;
+        }
+        TokenBuffer tokens = new TokenBuffer(MAPPER, false);
+        engine.execute(mappingName, safeInputs, safePayload, tokens);
+        resultValidator.validate(tokens);
+        tokens.serialize(generator);
+    }
+
+    /**
+     * Same as the generator variant above for a payload read straight from {@code payload}; only the top-level
+     * fields that name a variable are read (see {@link MappingEngine#execute(String, Map, JsonParser, JsonGenerator)}).
+     */
+    public void executeTo(String mappingName,
+                          Map<String, Object> inputs,
+                          JsonParser payload,
+                          JsonGenerator generator,
+                          ValidationMode validationMode) throws IOException {
+        Objects.requireNonNull(mappingName, "mappingName");
+        Objects.requireNonNull(payload, "payload");
+        Objects.requireNonNull(generator, "generator");
+        ValidationMode mode = validationMode != null ? validationMode : ValidationMode.ENABLED;
+        Map<String, Object> safeInputs = inputs != null ? inputs : Map.of();
+
+        if (mode == ValidationMode.DISABLED || !resultValidator.hasChecks()) {
+            engine.execute(mappingName, safeInputs, payload, generator);
+            return;
+        }
+        TokenBuffer tokens = new TokenBuffer(MAPPER, false);
+        engine.execute(mappingName, safeInputs, payload, tokens);
+        resultValidator.validate(tokens);
+        tokens.serialize(generator);
+    }
+
+    public BatchResult executeBatch(String mappingName,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink) throws IOException {
+        return executeBatch(mappingName, Map.of(), payloads, sink, BatchFormat.JSON_ARRAY, ValidationMode.ENABLED);
+    }
+
+    /**
+     * Maps every payload and writes the records to {@code sink} framed as {@code format}; see
+     * {@link MappingEngine#executeBatch}. With validation enabled each record is buffered as tokens and checked
+     * before it is written, and a record that fails its schema checks is reported like any other failed record.
+     */
+    public BatchResult executeBatch(String mappingName,
+                                    Map<String, Object> inputs,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink,
+                                    BatchFormat format,
+                                    ValidationMode validationMode) throws IOException {
+        return executeBatch(mappingName, inputs, payloads, sink, format, OutputFormat.JSON, validationMode);
+    }
+
+    public BatchResult executeBatch(String mappingName,
+                                    Map<String, Object> inputs,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink,
+                                    BatchFormat format,
+                                    OutputFormat output,
+                                    ValidationMode validationMode) throws IOException {
+        Objects.requireNonNull(mappingName, "mappingName");
+        Objects.requireNonNull(payloads, "payloads");
+        Objects.requireNonNull(sink, "sink");
+        ValidationMode mode = validationMode != null ? validationMode : ValidationMode.ENABLED;
+        BatchFormat safeFormat = format != null ? format : BatchFormat.JSON_ARRAY;
+        OutputFormat safeOutput = output != null ? output : OutputFormat.JSON;
+        Map<String, Object> safeInputs = inputs != null ? inputs : Map.of();
+
+        if (mode == ValidationMode.DISABLED || !resultValidator.hasChecks()) {
+            return engine.executeBatch(mappingName, safeInputs, payloads, sink, safeFormat, safeOutput);
+        }
+        return engine.executeBatch(mappingName, safeInputs, payloads, sink, safeFormat, safeOutput,
+            (generator, record) -> {
+                TokenBuffer tokens = new TokenBuffer(MAPPER, false);
+                record.writeTo(tokens);
+                resultValidator.validate(tokens);
+                tokens.serialize(generator);
+            });
     }
 
     public CompiledMapping compiled() {
@@ -118,9 +317,25 @@ public final class EngineBinding {
         }
     }
 
+    /**
+     * Output of a single execution. The variables snapshot is computed and serialized the first time
+     * {@link #variablesJson()} is read, so variables the mapping never referenced cost nothing otherwise.
+     */
     public record ExecutionResult(CompiledMapping compiledMapping,
                                   Map<String, Object> output,
-                                  String variablesJson) {
+                                  VariablesJson variables) {
+
+        public ExecutionResult(CompiledMapping compiledMapping, Map<String, Object> output, String variablesJson) {
+            this(compiledMapping, output, VariablesJson.of(variablesJson));
+        }
+
+        /**
+         * Serialized variable snapshot. Resolving variables the mapping skipped can fail the same way an
+         * eager snapshot would, in which case the {@code MappingException} surfaces here.
+         */
+        public String variablesJson() {
+            return variables.text();
+        }
 
         public String prettyOutput() {
             try {
@@ -131,6 +346,97 @@ public final class EngineBinding {
         }
     }
 
+    /**
+     * A variables snapshot serialized on first read and cached. Snapshots built from text compare by that text;
+     * a deferred snapshot is only equal to itself, so comparing, hashing or printing a result never resolves it.
+     */
+    public static final class VariablesJson {
+        private final boolean deferred;
+        private Supplier<Map<String, Object>> variables;
+        private String text;
+
+        private VariablesJson(Supplier<Map<String, Object>> variables, String text) {
+            this.deferred = variables != null;
+            this.variables = variables;
+            this.text = text;
+        }
+
+        public static VariablesJson of(String text) {
+            return new VariablesJson(null, Objects.requireNonNull(text, "text"));
+        }
+
+        static VariablesJson deferred(Supplier<Map<String, Object>> variables) {
+            return new VariablesJson(variables, null);
+        }
+
+        public synchronized String text() {
+            if (text == null) {
+                try {
+                    text = MAPPER.writeValueAsString(variables.get());
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Failed to serialize variables snapshot", ex);
+                }
+                variables = null;
+            }
+            return text;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            return !deferred && other instanceof VariablesJson json && !json.deferred && text.equals(json.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return deferred ? System.identityHashCode(this) : text.hashCode();
+        }
+
+        @Override
+        public synchronized String toString() {
+            return text != null ? text : "VariablesJson[unresolved]";
+        }
+    }
+
+    /**
+     * Per-thread output buffer for {@link #execute}. Reusing it avoids regrowing a fresh array on every call, and
+     * the output is parsed in place instead of through a {@code toByteArray()} copy.
+     */
+    private static final class OutputBuffer extends ByteArrayOutputStream {
+        private static final int MAX_RETAINED_BYTES = 1 << 20;
+        private static final ThreadLocal<OutputBuffer> BUFFERS = ThreadLocal.withInitial(OutputBuffer::new);
+
+        private boolean inUse;
+
+        private OutputBuffer() {
+            super(4096);
+        }
+
+        static OutputBuffer acquire() {
+            OutputBuffer buffer = BUFFERS.get();
+            if (buffer.inUse) {
+                return new OutputBuffer();
+            }
+            buffer.inUse = true;
+            return buffer;
+        }
+
+        Map<String, Object> readMap() throws IOException {
+            return MAPPER.readValue(buf, 0, count, MAP_TYPE);
+        }
+
+        void release() {
+            reset();
+            inUse = false;
+            if (buf.length > MAX_RETAINED_BYTES && BUFFERS.get() == this) {
+                // Do not pin the memory of one unusually large output to the thread.
+                BUFFERS.remove();
+            }
+        }
+    }
+
     public enum ValidationMode {
         ENABLED,
         DISABLED
@@ -1,18 +1,22 @@
 package github.jackutil;
 
 import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
-import java.io.Writer;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
-import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -22,15 +26,19 @@ import github.jackutil.compiler.ConfigValidator;
 import github.jackutil.compiler.ConfigValidationException;
 import github.jackutil.compiler.diagnostics.MappingDiagnostic;
 import github.jackutil.compiler.diagnostics.MappingException;
+import github.jackutil.compiler.runtime.BatchResult;
 import github.jackutil.compiler.runtime.MappingEngine;
+import github.jackutil.compiler.runtime.OutputFormat;
+import github.jackutil.io.DirectBufferOutputStream;
+import github.jackutil.io.DirectBufferPool;
+import github.jackutil.io.MappedPayloadFile;
 
 public final class EngineCLI {
 
     private static final ObjectMapper MAPPER = new ObjectMapper();
-    private static final JsonFactory FACTORY = MAPPER.getFactory();
     private static final TypeReference<Map<String, Object>> JSON_MAP_TYPE = new TypeReference<Map<String, Object>>() {};
 
-    private EngineCLI() {
+    EngineCLI() {
     }
 
     public static void main(String[] args) {
@@ -40,7 +48,7 @@ public final class EngineCLI {
         }
     }
 
-    private int run(String[] args, PrintStream out, PrintStream err) {
+    int run(String[] args, PrintStream out, PrintStream err) {
         if (args.length == 0) {
             printUsage(out);
             return 64;
@@ -80,10 +88,22 @@ public final class EngineCLI {
             CompiledMapping compiled = compileConfig(configBytes);
             MappingEngine engine = new MappingEngine(compiled);
             Map<String, Object> inputs = readBindings(options.input());
-            Map<String, Object> payload = readBindings(options.payload());
+            if (options.payloadFormat() != PayloadFormat.JSON) {
+                return runRecords(engine, options, inputs, out, err);
+            }
+            // The payload is bound from its bytes; fields no variable names are skipped rather than materialized.
+            byte[] payload = options.payload().isPresent() ? Files.readAllBytes(options.payload().get()) : new byte[0];
 
-            try (JsonGenerator generator = openGenerator(options.output(), options.pretty(), out)) {
-                engine.execute(options.mapping(), inputs, payload, generator);
+            DeferredFileOutput file = options.output().map(DeferredFileOutput::new).orElse(null);
+            try (JsonGenerator generator = openGenerator(file, options.format(), options.pretty(), out)) {
+                try {
+                    engine.execute(options.mapping(), inputs, payload, generator);
+                } catch (IOException | RuntimeException ex) {
+                    if (file != null) {
+                        file.discard();
+                    }
+                    throw ex;
+                }
                 generator.flush();
             }
             return 0;
@@ -91,15 +111,18 @@ public final class EngineCLI {
             err.println("Configuration invalid: " + ex.getMessage());
             return 65;
         } catch (MappingException ex) {
-            MappingDiagnostic diagnostic = ex.diagnostic();
-            err.println("Mapping failed [" + diagnostic.code() + "]: " + diagnostic.message());
-            if (diagnostic.pointer() != null && !diagnostic.pointer().isBlank()) {
-                err.println("Pointer: " + diagnostic.pointer());
-            }
-            if (!diagnostic.details().isEmpty()) {
-                err.println("Details: " + diagnostic.details());
-            }
+            printDiagnostic("Mapping failed", ex.diagnostic(), err);
             return 70;
+        } catch (UncheckedIOException ex) {
+            if (ex.getCause() instanceof JsonProcessingException parseError) {
+                err.println("Payload invalid: " + parseError.getOriginalMessage());
+                return 65;
+            }
+            err.println("I/O error: " + ex.getCause().getMessage());
+            return 74;
+        } catch (JsonProcessingException ex) {
+            err.println("Payload invalid: " + ex.getOriginalMessage());
+            return 65;
         } catch (IOException ex) {
             err.println("I/O error: " + ex.getMessage());
             return 74;
@@ -109,6 +132,42 @@ public final class EngineCLI {
         }
     }
 
+    /**
+     * Maps a multi-record payload file through a {@link RecordPipeline} over the memory-mapped file. Memory stays
+     * bounded by the chunks in flight; a record that fails is reported on {@code err} and the remaining records are
+     * still written.
+     */
+    private int runRecords(MappingEngine engine,
+                           CliOptions options,
+                           Map<String, Object> inputs,
+                           PrintStream out,
+                           PrintStream err) throws IOException {
+        BatchResult result;
+        MappedPayloadFile.Layout layout = options.payloadFormat() == PayloadFormat.ARRAY
+            ? MappedPayloadFile.Layout.JSON_ARRAY
+            : MappedPayloadFile.Layout.NDJSON;
+        RecordPipeline pipeline = new RecordPipeline(engine, options.mapping(), inputs, options.threads(),
+            !options.unordered(), RecordPipeline.DEFAULT_CHUNK_BYTES, options.format());
+        try (MappedPayloadFile file = MappedPayloadFile.open(options.payload().get(), layout);
+             OutputStream sink = openOutput(options.output(), out)) {
+            result = pipeline.run(file, sink);
+        }
+        for (BatchResult.RecordFailure failure : result.failures()) {
+            printDiagnostic("Record " + failure.index() + " failed", failure.diagnostic(), err);
+        }
+        return result.succeeded() ? 0 : 70;
+    }
+
+    private static void printDiagnostic(String prefix, MappingDiagnostic diagnostic, PrintStream err) {
+        err.println(prefix + " [" + diagnostic.code() + "]: " + diagnostic.message());
+        if (diagnostic.pointer() != null && !diagnostic.pointer().isBlank()) {
+            err.println("Pointer: " + diagnostic.pointer());
+        }
+        if (!diagnostic.details().isEmpty()) {
+            err.println("Details: " + diagnostic.details());
+        }
+    }
+
     private void validateConfig(byte[] configBytes) {
         try (InputStream in = new ByteArrayInputStream(configBytes)) {
             ConfigValidator.validate(in);
@@ -139,18 +198,15 @@ public final class EngineCLI {
         }
     }
 
-    private JsonGenerator openGenerator(Optional<Path> outputPath, boolean pretty, PrintStream stdOut) throws IOException {
+    private JsonGenerator openGenerator(DeferredFileOutput file,
+                                        OutputFormat format,
+                                        boolean pretty,
+                                        PrintStream stdOut) throws IOException {
         JsonGenerator generator;
-        if (outputPath.isPresent()) {
-            Path path = outputPath.get();
-            Path parent = path.getParent();
-            if (parent != null) {
-                Files.createDirectories(parent);
-            }
-            Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
-            generator = FACTORY.createGenerator(writer);
+        if (file != null) {
+            generator = format.factory().createGenerator(file);
         } else {
-            generator = FACTORY.createGenerator(stdOut);
+            generator = format.factory().createGenerator(stdOut);
             generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
         }
         if (pretty) {
@@ -159,8 +215,96 @@ public final class EngineCLI {
         return generator;
     }
 
+    private OutputStream openOutput(Optional<Path> outputPath, PrintStream stdOut) throws IOException {
+        if (outputPath.isEmpty()) {
+            // Closing the batch sink must not close stdout.
+            return new FilterOutputStream(stdOut) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        return openFile(outputPath.get());
+    }
+
+    private static OutputStream openFile(Path path) throws IOException {
+        Path parent = path.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        // UTF-8 bytes go straight from the generator into pooled direct buffers and out by gathering writes.
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        return new DirectBufferOutputStream(channel, DirectBufferPool.shared(), true);
+    }
+
+    /**
+     * Opens the output file on the first byte written to it. The payload is bound before the mapping writes
+     * anything and the generator buffers what it writes, so a rejected payload leaves an existing file untouched.
+     * After {@link #discard()} the bytes the generator still flushes on close, such as a Smile header, are dropped
+     * unless the file was already opened. Closing without a discard always replaces the file, even if nothing was
+     * written.
+     */
+    static final class DeferredFileOutput extends OutputStream {
+        private final Path path;
+        private OutputStream target;
+        private boolean discarded;
+
+        DeferredFileOutput(Path path) {
+            this.path = path;
+        }
+
+        void discard() {
+            discarded = true;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            OutputStream out = target();
+            if (out != null) {
+                out.write(b);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            OutputStream out = target();
+            if (out != null) {
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            OutputStream out = target();
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        private OutputStream target() throws IOException {
+            if (target == null && !discarded) {
+                target = openFile(path);
+            }
+            return target;
+        }
+    }
+
     private void printUsage(PrintStream stream) {
-        stream.println("Usage: java -jar engine.jar --config <file> --mapping <name> [--input <file>] [--payload <file>] [--output <file>] [--pretty]");
+        stream.println("Usage: java -jar engine.jar --config <file> --mapping <name> [--input <file>] [--payload <file>] [--output <file>] [--pretty] [--payload-format json|ndjson|array] [--threads <n>] [--unordered] [--format json|smile|cbor]");
         stream.println();
         stream.println("Options:");
         stream.println("  --config <file>   Path to mapping DSL configuration (JSON).");
@@ -169,6 +313,14 @@ public final class EngineCLI {
         stream.println("  --payload <file>  Optional JSON file providing payload variables.");
         stream.println("  --output <file>   Optional destination for generated JSON; defaults to stdout.");
         stream.println("  --pretty          Enable pretty-printed JSON output.");
+        stream.println("  --payload-format <json|ndjson|array>");
+        stream.println("                    ndjson (one record per line) and array (a JSON array of records) map every");
+        stream.println("                    record of the payload file and write one output line per record;");
+        stream.println("                    json (default) maps the file as a single payload.");
+        stream.println("  --threads <n>     Map ndjson or array records on n worker threads.");
+        stream.println("  --unordered       With --threads, write records as chunks complete instead of in input order.");
+        stream.println("  --format <json|smile|cbor>");
+        stream.println("                    Output encoding; defaults to json. Binary records are written back to back.");
         stream.println("  --help            Show this message.");
         stream.println();
         stream.println("Enable instruction metrics by adding -Djme.profile.instructions=true when launching.");
@@ -179,7 +331,11 @@ public final class EngineCLI {
                               Optional<Path> payload,
                               Optional<Path> output,
                               String mapping,
-                              boolean pretty) {
+                              boolean pretty,
+                              PayloadFormat payloadFormat,
+                              int threads,
+                              boolean unordered,
+                              OutputFormat format) {
 
         private static CliOptions parse(String[] args) {
             Path config = null;
@@ -188,6 +344,10 @@ public final class EngineCLI {
             Path output = null;
             String mapping = null;
             boolean pretty = false;
+            PayloadFormat payloadFormat = PayloadFormat.JSON;
+            int threads = 1;
+            boolean unordered = false;
+            OutputFormat format = OutputFormat.JSON;
 
             for (int i = 0; i < args.length; i++) {
                 String arg = args[i];
@@ -198,6 +358,10 @@ public final class EngineCLI {
                     case "--output" -> output = Path.of(requireValue("--output", args, ++i));
                     case "--mapping" -> mapping = requireValue("--mapping", args, ++i);
                     case "--pretty" -> pretty = true;
+                    case "--payload-format" -> payloadFormat = PayloadFormat.parse(requireValue("--payload-format", args, ++i));
+                    case "--threads" -> threads = parseThreads(requireValue("--threads", args, ++i));
+                    case "--unordered" -> unordered = true;
+                    case "--format" -> format = parseFormat(requireValue("--format", args, ++i));
                     default -> throw new IllegalArgumentException("Unknown option: " + arg);
                 }
             }
@@ -209,7 +373,50 @@ public final class EngineCLI {
                 throw new IllegalArgumentException("Missing required option --mapping");
             }
 
-            return new CliOptions(config, Optional.ofNullable(input), Optional.ofNullable(payload), Optional.ofNullable(output), mapping, pretty);
+            if (payloadFormat != PayloadFormat.JSON) {
+                if (payload == null) {
+                    throw new IllegalArgumentException("--payload-format " + payloadFormat.option() + " requires --payload");
+                }
+                if (pretty) {
+                    throw new IllegalArgumentException("--pretty cannot be combined with --payload-format " + payloadFormat.option());
+                }
+            }
+
+            if (pretty && format != OutputFormat.JSON) {
+                throw new IllegalArgumentException("--pretty only applies to --format json");
+            }
+
+            if (threads > 1 && payloadFormat == PayloadFormat.JSON) {
+                throw new IllegalArgumentException("--threads requires --payload-format ndjson or array");
+            }
+
+            if (unordered && threads <= 1) {
+                throw new IllegalArgumentException("--unordered requires --threads greater than 1");
+            }
+
+            return new CliOptions(config, Optional.ofNullable(input), Optional.ofNullable(payload), Optional.ofNullable(output), mapping, pretty, payloadFormat, threads, unordered, format);
+        }
+
+        private static OutputFormat parseFormat(String value) {
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "json" -> OutputFormat.JSON;
+                case "smile" -> OutputFormat.SMILE;
+                case "cbor" -> OutputFormat.CBOR;
+                default -> throw new IllegalArgumentException("Unsupported output format: " + value);
+            };
+        }
+
+        private static int parseThreads(String value) {
+            int threads;
+            try {
+                threads = Integer.parseInt(value);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("--threads requires a number: " + value);
+            }
+            if (threads < 1) {
+                throw new IllegalArgumentException("--threads must be at least 1");
+            }
+            return threads;
         }
 
         private static String requireValue(String option, String[] args, int index) {
@@ -219,5 +426,23 @@ public final class EngineCLI {
             return args[index];
         }
     }
-}
 
+    private enum PayloadFormat {
+        JSON,
+        NDJSON,
+        ARRAY;
+
+        private String option() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        private static PayloadFormat parse(String value) {
+            return switch (value.toLowerCase(Locale.ROOT)) {
+                case "json" -> JSON;
+                case "ndjson" -> NDJSON;
+                case "array" -> ARRAY;
+                default -> throw new IllegalArgumentException("Unsupported payload format: " + value);
+            };
+        }
+    }
+}
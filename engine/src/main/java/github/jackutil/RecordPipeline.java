@@ -0,0 +1,198 @@
+package github.jackutil;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import github.jackutil.compiler.runtime.BatchFormat;
+import github.jackutil.compiler.runtime.BatchResult;
+import github.jackutil.compiler.runtime.MappingEngine;
+import github.jackutil.compiler.runtime.OutputFormat;
+import github.jackutil.io.MappedPayloadFile;
+
+/**
+ * Maps a multi-record payload file on a pool of worker threads. The file is cut into chunks on record boundaries,
+ * the ranges of a {@link MappedPayloadFile}; workers parse and map whole chunks through
+ * {@link MappingEngine#executeBatch}, each on its own thread-confined execution frame. At most two chunks per worker
+ * are in flight, which bounds memory and blocks the splitter while the sink falls behind. Chunks are written
+ * in input order unless the pipeline is unordered, in which case they are written as they complete.
+ */
+final class RecordPipeline {
+    static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private final MappingEngine engine;
+    private final String mappingName;
+    private final Map<String, Object> inputs;
+    private final int threads;
+    private final boolean ordered;
+    private final int chunkBytes;
+    private final OutputFormat output;
+
+    RecordPipeline(MappingEngine engine,
+                   String mappingName,
+                   Map<String, Object> inputs,
+                   int threads,
+                   boolean ordered,
+                   int chunkBytes) {
+        this(engine, mappingName, inputs, threads, ordered, chunkBytes, OutputFormat.JSON);
+    }
+
+    /**
+     * With a binary {@code output} the records of all chunks form one root-level value sequence; a Smile chunk
+     * opens with its own header, which resets the back-reference tables for the chunk.
+     */
+    RecordPipeline(MappingEngine engine,
+                   String mappingName,
+                   Map<String, Object> inputs,
+                   int threads,
+                   boolean ordered,
+                   int chunkBytes,
+                   OutputFormat output) {
+        this.engine = engine;
+        this.mappingName = mappingName;
+        this.inputs = inputs;
+        this.threads = threads;
+        this.ordered = ordered;
+        this.chunkBytes = chunkBytes;
+        this.output = output;
+    }
+
+    /**
+     * Maps every record of {@code file} and writes the output records to {@code sink}, which is flushed but not
+     * closed. Failure indices in the result are positions in the whole file, whatever order chunks finished in.
+     * Each worker copies its own range out of the mapping, so the calling thread only scans for boundaries.
+     */
+    BatchResult run(MappedPayloadFile file, OutputStream sink) throws IOException {
+        Iterator<MappedPayloadFile.Range> ranges = file.split(chunkBytes).iterator();
+        return run(sequence -> {
+            if (!ranges.hasNext()) {
+                return null;
+            }
+            MappedPayloadFile.Range range = ranges.next();
+            return () -> map(sequence, range.length(), () -> file.openParser(FACTORY, range));
+        }, sink);
+    }
+
+    private BatchResult run(ChunkSource source, OutputStream sink) throws IOException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads,
+            Thread.ofPlatform().name("jme-worker-", 0).daemon(true).factory());
+        CompletionService<Chunk> completed = new ExecutorCompletionService<>(workers);
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        int pending = 0;
+        int limit = threads * 2;
+        List<Chunk> chunks = new ArrayList<>();
+        try {
+            int sequence = 0;
+            for (Callable<Chunk> task = source.next(sequence); task != null; task = source.next(++sequence)) {
+                if (pending == limit) {
+                    chunks.add(drain(ordered ? inFlight.poll() : completed.take(), sink));
+                    pending--;
+                }
+                if (ordered) {
+                    inFlight.add(workers.submit(task));
+                } else {
+                    completed.submit(task);
+                }
+                pending++;
+            }
+            while (pending > 0) {
+                chunks.add(drain(ordered ? inFlight.poll() : completed.take(), sink));
+                pending--;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while mapping records", ex);
+        } finally {
+            workers.shutdownNow();
+        }
+        sink.flush();
+        return merge(chunks);
+    }
+
+    private Chunk map(int sequence, long inputBytes, ParserSource parsers) throws IOException {
+        int capacity = (int) Math.min(Integer.MAX_VALUE - 8, inputBytes + (inputBytes >> 1));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(capacity);
+        try (JsonParser parser = parsers.open()) {
+            // Records are bound straight from the parser; fields no variable names are skipped, not materialized.
+            BatchResult result = engine.executeBatch(mappingName, inputs, parser, buffer,
+                output.textual() ? BatchFormat.NDJSON : BatchFormat.SEQUENCE, output);
+            return new Chunk(sequence, buffer, result);
+        } catch (JsonProcessingException ex) {
+            // Reported like any other unreadable payload; see EngineCLI.
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Chunk drain(Future<Chunk> future, OutputStream sink) throws IOException, InterruptedException {
+        Chunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
+        chunk.output().writeTo(sink);
+        // Only the counts and failures are kept once the bytes have reached the sink.
+        return new Chunk(chunk.sequence(), null, chunk.result());
+    }
+
+    private static BatchResult merge(List<Chunk> chunks) {
+        chunks.sort(Comparator.comparingInt(Chunk::sequence));
+        int records = 0;
+        int written = 0;
+        List<BatchResult.RecordFailure> failures = new ArrayList<>();
+        for (Chunk chunk : chunks) {
+            for (BatchResult.RecordFailure failure : chunk.result().failures()) {
+                failures.add(new BatchResult.RecordFailure(records + failure.index(), failure.diagnostic()));
+            }
+            records += chunk.result().records();
+            written += chunk.result().written();
+        }
+        return new BatchResult(records, written, failures);
+    }
+
+    @FunctionalInterface
+    private interface ChunkSource {
+        /**
+         * Returns the work for chunk {@code sequence}, or {@code null} once the input is exhausted.
+         */
+        Callable<Chunk> next(int sequence) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface ParserSource {
+        JsonParser open() throws IOException;
+    }
+
+    private record Chunk(int sequence, ByteArrayOutputStream output, BatchResult result) {
+    }
+}
@@ -4,6 +4,7 @@ import java.util.Objects;
 
 import github.jackutil.compiler.ir.MappingProgram;
 import github.jackutil.compiler.ir.resolved.ResolvedConfig;
+import github.jackutil.compiler.runtime.BytecodeProgram;
 
 /**
  * Immutable representation of a compiled mapping program ready for execution.
@@ -11,10 +12,16 @@ import github.jackutil.compiler.ir.resolved.ResolvedConfig;
 public final class CompiledMapping {
     private final ResolvedConfig config;
     private final MappingProgram program;
+    private final BytecodeProgram bytecode;
 
     public CompiledMapping(ResolvedConfig config, MappingProgram program) {
+        this(config, program, null);
+    }
+
+    public CompiledMapping(ResolvedConfig config, MappingProgram program, BytecodeProgram bytecode) {
         this.config = Objects.requireNonNull(config, "config");
         this.program = Objects.requireNonNull(program, "program");
+        this.bytecode = bytecode;
     }
 
     public ResolvedConfig config() {
@@ -24,4 +31,15 @@ public final class CompiledMapping {
     public MappingProgram program() {
         return program;
     }
+
+    /**
+     * Generated classes for the program's blocks, or {@code null} when compiled for the interpreter.
+     */
+    public BytecodeProgram bytecode() {
+        return bytecode;
+    }
+
+    public ExecutionBackend backend() {
+        return bytecode != null ? ExecutionBackend.BYTECODE : ExecutionBackend.INTERPRETER;
+    }
 }
@@ -23,7 +23,16 @@ public final class ConfigCompiler {
     }
 
     public static CompiledMapping compile(InputStream stream) {
+        return compile(stream, ExecutionBackend.INTERPRETER);
+    }
+
+    /**
+     * Compiles a configuration for the given backend. {@link ExecutionBackend#BYTECODE} generates its classes here,
+     * so the cost is paid once per config rather than per execution.
+     */
+    public static CompiledMapping compile(InputStream stream, ExecutionBackend backend) {
         Objects.requireNonNull(stream, "stream");
+        Objects.requireNonNull(backend, "backend");
         CompilerContext context = new CompilerContext();
         try (JsonParser parser = FACTORY.createParser(stream)) {
             StreamingCompiler.consume(parser, context);
@@ -36,7 +45,7 @@ public final class ConfigCompiler {
                 context.mappingIndex,
                 context.schemaIndex
             );
-            return InstructionCompiler.compile(resolved);
+            return InstructionCompiler.compile(resolved, backend);
         } catch (MappingException ex) {
             throw ex;
         } catch (IllegalStateException ex) {
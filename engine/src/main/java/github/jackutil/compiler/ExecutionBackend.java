@@ -0,0 +1,17 @@
+package github.jackutil.compiler;
+
+/**
+ * Selects how a compiled mapping runs its instruction blocks.
+ */
+public enum ExecutionBackend {
+    /**
+     * Dispatches every opcode through the runtime interpreter loop.
+     */
+    INTERPRETER,
+    /**
+     * Generates one hidden class per instruction block at compile time. Field names and scalar literals become
+     * constants in straight-line generator calls, which suits large configs that are compiled once and executed
+     * many times.
+     */
+    BYTECODE
+}
@@ -7,6 +7,7 @@ import github.jackutil.compiler.ir.EngineConfig;
 import github.jackutil.compiler.ir.MappingProgram;
 import github.jackutil.compiler.ir.Meta;
 import github.jackutil.compiler.ir.resolved.ResolvedConfig;
+import github.jackutil.compiler.runtime.BytecodeProgram;
 import github.jackutil.compiler.runtime.InstructionEmitter;
 import github.jackutil.compiler.runtime.InstructionMetricsRecorder;
 import github.jackutil.compiler.runtime.InstructionOptimizer;
@@ -34,10 +35,17 @@ final class InstructionCompiler {
     }
 
     static CompiledMapping compile(ResolvedConfig config) {
+        return compile(config, ExecutionBackend.INTERPRETER);
+    }
+
+    static CompiledMapping compile(ResolvedConfig config, ExecutionBackend backend) {
         ResolvedConfig optimized = InstructionOptimizer.optimize(config);
         InstructionEmitter emitter = new InstructionEmitter();
         MappingProgram program = new MappingProgram(emitter.emit(optimized));
         InstructionMetricsRecorder.record(optimized, program);
-        return new CompiledMapping(optimized, program);
+        BytecodeProgram bytecode = backend == ExecutionBackend.BYTECODE
+            ? BytecodeProgram.generate(program.program())
+            : null;
+        return new CompiledMapping(optimized, program, bytecode);
     }
 }
@@ -0,0 +1,66 @@
+package github.jackutil.compiler.ir;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+
+/**
+ * A fully constant literal subtree serialized once at compile time. {@link #compact()} is exactly what structural
+ * writes produce without a pretty printer; the pretty form is Jackson's default pretty printer output at nesting
+ * depth zero and is re-indented, then cached, for each deeper position it is written at.
+ */
+public final class ConstFragment {
+    private static final int CACHED_DEPTHS = 16;
+    private static final String INDENT = "  ";
+
+    private final Object value;
+    private final SerializedString compact;
+    private final String pretty;
+    private final AtomicReferenceArray<SerializedString> indented = new AtomicReferenceArray<>(CACHED_DEPTHS);
+
+    public ConstFragment(Object value, String compact, String pretty) {
+        this.value = value;
+        this.compact = encode(Objects.requireNonNull(compact, "compact"));
+        this.pretty = Objects.requireNonNull(pretty, "pretty");
+    }
+
+    /**
+     * The literal itself, for generators that cannot take raw JSON text.
+     */
+    public Object value() {
+        return value;
+    }
+
+    public SerializedString compact() {
+        return compact;
+    }
+
+    public SerializedString pretty(int depth) {
+        if (depth >= CACHED_DEPTHS) {
+            return encode(indent(depth));
+        }
+        SerializedString cached = indented.get(depth);
+        if (cached == null) {
+            // Racing threads compute identical text, so whichever write lands is fine.
+            cached = encode(indent(depth));
+            indented.set(depth, cached);
+        }
+        return cached;
+    }
+
+    private String indent(int depth) {
+        if (depth == 0) {
+            return pretty;
+        }
+        // Serialized strings never contain a raw line feed, so every line feed is a layout break.
+        return pretty.replace(DefaultIndenter.SYS_LF, DefaultIndenter.SYS_LF + INDENT.repeat(depth));
+    }
+
+    private static SerializedString encode(String text) {
+        SerializedString encoded = new SerializedString(text);
+        encoded.asUnquotedUTF8();
+        return encoded;
+    }
+}
@@ -0,0 +1,79 @@
+package github.jackutil.compiler.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Pre-serialized literals, indexed like the literal table they were built from; an index holds {@code null} when its
+ * literal is not written by {@code WRITE_CONST}. The fragments are not exposed as an array; equality is that of the
+ * literal values.
+ */
+public final class ConstFragments {
+    private static final ConstFragments EMPTY = new ConstFragments(new ConstFragment[0]);
+
+    private final ConstFragment[] fragments;
+
+    private ConstFragments(ConstFragment[] fragments) {
+        this.fragments = fragments;
+    }
+
+    public static ConstFragments empty() {
+        return EMPTY;
+    }
+
+    public static ConstFragments of(List<ConstFragment> fragments) {
+        return new ConstFragments(fragments.toArray(new ConstFragment[0]));
+    }
+
+    /**
+     * A table of {@code size} entries none of which is a fragment.
+     */
+    public static ConstFragments none(int size) {
+        return size == 0 ? EMPTY : new ConstFragments(new ConstFragment[size]);
+    }
+
+    public ConstFragment get(int index) {
+        return fragments[index];
+    }
+
+    public int size() {
+        return fragments.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ConstFragments that) || fragments.length != that.fragments.length) {
+            return false;
+        }
+        for (int i = 0; i < fragments.length; i++) {
+            if (!Objects.equals(valueAt(i), that.valueAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return values().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return values().toString();
+    }
+
+    private Object valueAt(int index) {
+        ConstFragment fragment = fragments[index];
+        return fragment != null ? fragment.value() : null;
+    }
+
+    private List<Object> values() {
+        List<Object> values = new ArrayList<>(fragments.length);
+        for (int i = 0; i < fragments.length; i++) {
+            values.add(valueAt(i));
+        }
+        return values;
+    }
+}
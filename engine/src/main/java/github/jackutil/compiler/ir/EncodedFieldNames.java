@@ -0,0 +1,65 @@
+package github.jackutil.compiler.ir;
+
+import java.util.List;
+
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * Field names with their quoted UTF-8 and char forms already computed, so writing a field never re-escapes it. The
+ * encoded names are not exposed as an array; equality is that of the plain names.
+ */
+public final class EncodedFieldNames {
+    private static final EncodedFieldNames EMPTY = new EncodedFieldNames(List.of(), new SerializedString[0]);
+
+    private final List<String> names;
+    private final SerializedString[] encoded;
+
+    private EncodedFieldNames(List<String> names, SerializedString[] encoded) {
+        this.names = names;
+        this.encoded = encoded;
+    }
+
+    public static EncodedFieldNames empty() {
+        return EMPTY;
+    }
+
+    public static EncodedFieldNames of(List<String> names) {
+        List<String> copy = List.copyOf(names);
+        SerializedString[] encoded = new SerializedString[copy.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            SerializedString name = new SerializedString(copy.get(i));
+            // Byte and char generators read different cached forms; fill both before the names are shared.
+            name.asQuotedUTF8();
+            name.asQuotedChars();
+            encoded[i] = name;
+        }
+        return new EncodedFieldNames(copy, encoded);
+    }
+
+    public SerializedString get(int index) {
+        return encoded[index];
+    }
+
+    public int size() {
+        return encoded.length;
+    }
+
+    public List<String> names() {
+        return names;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof EncodedFieldNames that && names.equals(that.names);
+    }
+
+    @Override
+    public int hashCode() {
+        return names.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
@@ -11,4 +11,21 @@ public record FunctionDef(int id,
                           Object payload,
                           List<Object> args,
                           String description) {
+
+    /**
+     * The argument vector of a call site: {@code callArgs} followed by this function's own {@code args}. Built once
+     * per derive when an engine plans execution, so calls never merge argument lists at runtime.
+     */
+    public Object[] argumentVector(List<Object> callArgs) {
+        int callCount = callArgs == null ? 0 : callArgs.size();
+        int defaultCount = args == null ? 0 : args.size();
+        Object[] vector = new Object[callCount + defaultCount];
+        for (int i = 0; i < callCount; i++) {
+            vector[i] = callArgs.get(i);
+        }
+        for (int i = 0; i < defaultCount; i++) {
+            vector[callCount + i] = args.get(i);
+        }
+        return vector;
+    }
 }
@@ -2,5 +2,53 @@ package github.jackutil.compiler.ir;
 
 import github.jackutil.compiler.ir.enums.OpCode;
 
-public record InstructionBlock(OpCode[] opcodes, int[][] operands) {
+/**
+ * One mapping's instructions packed into a single code stream. Every instruction is one {@code int}: the opcode
+ * ordinal in the low 8 bits and its operand, or zero when it has none, in the upper 24 bits.
+ */
+public record InstructionBlock(int[] code) {
+    public static final int MAX_OPERAND = (1 << 24) - 1;
+
+    private static final OpCode[] OPCODES = OpCode.values();
+
+    public static int encode(OpCode opcode, int operand) {
+        if (operand < 0 || operand > MAX_OPERAND) {
+            throw new IllegalStateException("Operand " + operand + " does not fit an instruction word");
+        }
+        return opcode.ordinal() | operand << 8;
+    }
+
+    public static OpCode opcode(int word) {
+        return OPCODES[word & 0xFF];
+    }
+
+    public static int operand(int word) {
+        return word >>> 8;
+    }
+
+    public int length() {
+        return code.length;
+    }
+
+    /**
+     * Decodes the opcodes into a fresh array; prefer {@link #code()} on hot paths.
+     */
+    public OpCode[] opcodes() {
+        OpCode[] opcodes = new OpCode[code.length];
+        for (int i = 0; i < code.length; i++) {
+            opcodes[i] = opcode(code[i]);
+        }
+        return opcodes;
+    }
+
+    /**
+     * Decodes the operands into one single-element array per instruction; prefer {@link #code()} on hot paths.
+     */
+    public int[][] operands() {
+        int[][] operands = new int[code.length][];
+        for (int i = 0; i < code.length; i++) {
+            operands[i] = new int[]{operand(code[i])};
+        }
+        return operands;
+    }
 }
@@ -2,10 +2,27 @@ package github.jackutil.compiler.ir;
 
 import java.util.List;
 
+/**
+ * Emitted blocks plus their constant pools. {@code encodedFieldNames} runs parallel to {@code fieldNames} and is
+ * built once by the emitter with every name already escaped. {@code constFragments} runs parallel to
+ * {@code literals}; it holds the pre-serialized text of every literal that a {@code WRITE_CONST} instruction refers
+ * to and is {@code null} for the rest. Strings, integral numbers and decimals are not in {@code literals} at all but
+ * in the unboxed {@code scalars} pools of their typed opcodes.
+ */
 public record InstructionProgram(List<InstructionBlock> blocks,
                                  List<String> fieldNames,
-                                 List<Object> literals) {
+                                 List<Object> literals,
+                                 EncodedFieldNames encodedFieldNames,
+                                 ConstFragments constFragments,
+                                 ScalarPools scalars) {
+
+    public InstructionProgram(List<InstructionBlock> blocks, List<String> fieldNames, List<Object> literals) {
+        this(blocks, fieldNames, literals, EncodedFieldNames.of(fieldNames), ConstFragments.none(literals.size()),
+            ScalarPools.empty());
+    }
+
     public static InstructionProgram empty() {
-        return new InstructionProgram(List.of(), List.of(), List.of());
+        return new InstructionProgram(List.of(), List.of(), List.of(), EncodedFieldNames.empty(), ConstFragments.empty(),
+            ScalarPools.empty());
     }
 }
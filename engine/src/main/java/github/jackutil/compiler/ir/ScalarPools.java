@@ -0,0 +1,71 @@
+package github.jackutil.compiler.ir;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unboxed literal pools behind the typed write opcodes: {@code WRITE_STRING} indexes {@link #string(int)},
+ * {@code WRITE_LONG} indexes {@link #longValue(int)} and {@code WRITE_DECIMAL} indexes {@link #decimal(int)}.
+ * The pools are not exposed as arrays; equality is that of their contents.
+ */
+public final class ScalarPools {
+    private static final ScalarPools EMPTY = new ScalarPools(new String[0], new long[0], new BigDecimal[0]);
+
+    private final String[] strings;
+    private final long[] longs;
+    private final BigDecimal[] decimals;
+
+    private ScalarPools(String[] strings, long[] longs, BigDecimal[] decimals) {
+        this.strings = strings;
+        this.longs = longs;
+        this.decimals = decimals;
+    }
+
+    public static ScalarPools empty() {
+        return EMPTY;
+    }
+
+    public static ScalarPools of(List<String> strings, List<Long> longs, List<BigDecimal> decimals) {
+        long[] longValues = new long[longs.size()];
+        for (int i = 0; i < longValues.length; i++) {
+            longValues[i] = longs.get(i);
+        }
+        return new ScalarPools(strings.toArray(new String[0]), longValues, decimals.toArray(new BigDecimal[0]));
+    }
+
+    public String string(int index) {
+        return strings[index];
+    }
+
+    public long longValue(int index) {
+        return longs[index];
+    }
+
+    public BigDecimal decimal(int index) {
+        return decimals[index];
+    }
+
+    public int size() {
+        return strings.length + longs.length + decimals.length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ScalarPools that
+            && Arrays.equals(strings, that.strings)
+            && Arrays.equals(longs, that.longs)
+            && Arrays.equals(decimals, that.decimals);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(strings) + Arrays.hashCode(longs)) + Arrays.hashCode(decimals);
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarPools[strings=" + Arrays.toString(strings) + ", longs=" + Arrays.toString(longs)
+            + ", decimals=" + Arrays.toString(decimals) + "]";
+    }
+}
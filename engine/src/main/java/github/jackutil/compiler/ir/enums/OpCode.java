@@ -7,6 +7,11 @@ public enum OpCode {
     END_ARRAY,
     WRITE_FIELD,
     WRITE_LITERAL,
+    WRITE_STRING,
+    WRITE_LONG,
+    WRITE_DECIMAL,
+    WRITE_BOOL,
+    WRITE_NULL,
     WRITE_VARIABLE,
     WRITE_INPUT,
     WRITE_MAPPING,
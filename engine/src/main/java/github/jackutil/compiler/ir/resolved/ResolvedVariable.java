@@ -4,6 +4,10 @@ import java.util.List;
 
 import github.jackutil.compiler.ir.enums.ValueType;
 
+/**
+ * A variable with its references resolved to ids. {@code deriveArgs} holds the derive call's own arguments; the
+ * function's default arguments are appended once, when an engine plans execution.
+ */
 public record ResolvedVariable(int id,
                                String name,
                                ValueType type,
@@ -0,0 +1,13 @@
+package github.jackutil.compiler.runtime;
+
+/**
+ * Framing used by batch execution to separate the records written to one sink.
+ */
+public enum BatchFormat {
+    /** Records are the elements of a single top-level JSON array. */
+    JSON_ARRAY,
+    /** Every record is followed by a line feed (newline-delimited JSON). */
+    NDJSON,
+    /** Records are concatenated root-level values with nothing in between; the framing for Smile and CBOR. */
+    SEQUENCE
+}
@@ -0,0 +1,23 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.List;
+
+import github.jackutil.compiler.diagnostics.MappingDiagnostic;
+
+/**
+ * Outcome of a batch execution. Failed records are left out of the sink and reported by their zero-based
+ * position in the payload sequence.
+ */
+public record BatchResult(int records, int written, List<RecordFailure> failures) {
+
+    public BatchResult {
+        failures = List.copyOf(failures);
+    }
+
+    public boolean succeeded() {
+        return failures.isEmpty();
+    }
+
+    public record RecordFailure(int index, MappingDiagnostic diagnostic) {
+    }
+}
@@ -0,0 +1,104 @@
+package github.jackutil.compiler.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import github.jackutil.compiler.diagnostics.MappingException;
+
+/**
+ * Frames a sequence of records onto one sink. Every record is rendered into a reused buffer by a single
+ * generator and copied to the sink only once it completes, so a record that fails with a
+ * {@link MappingException} leaves no partial output behind and the batch carries on with the next one.
+ * The sink is flushed by {@link #finish()} but never closed. Instances are not thread-safe.
+ */
+public final class BatchWriter {
+    private static final byte[] ARRAY_START = {'['};
+    private static final byte[] ARRAY_END = {']'};
+    private static final byte[] COMMA = {','};
+    private static final byte[] LINE_FEED = {'\n'};
+
+    private final JsonFactory factory;
+    private final OutputStream sink;
+    private final BatchFormat format;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(512);
+    private final List<BatchResult.RecordFailure> failures = new ArrayList<>();
+
+    private JsonGenerator generator;
+    private int records;
+    private int written;
+
+    public BatchWriter(JsonFactory factory, OutputStream sink, BatchFormat format) throws IOException {
+        this.factory = Objects.requireNonNull(factory, "factory");
+        this.sink = Objects.requireNonNull(sink, "sink");
+        this.format = Objects.requireNonNull(format, "format");
+        if (format != BatchFormat.SEQUENCE && !JsonFactory.FORMAT_NAME_JSON.equals(factory.getFormatName())) {
+            throw new IllegalArgumentException(format + " framing requires JSON output, not " + factory.getFormatName());
+        }
+        this.generator = newGenerator();
+        if (format == BatchFormat.JSON_ARRAY) {
+            sink.write(ARRAY_START);
+        }
+    }
+
+    /**
+     * Renders one record. Returns {@code false} when the record failed with a {@link MappingException}; the
+     * failure is recorded against its index and nothing reaches the sink. Other exceptions abort the batch.
+     */
+    public boolean write(RecordWriter writer) throws IOException {
+        int index = records++;
+        try {
+            writer.writeTo(generator);
+            generator.flush();
+        } catch (MappingException ex) {
+            failures.add(new BatchResult.RecordFailure(index, ex.diagnostic()));
+            // The generator's write context is somewhere inside the failed record; start over with a clean one.
+            record.reset();
+            generator = newGenerator();
+            return false;
+        }
+        if (format == BatchFormat.JSON_ARRAY && written > 0) {
+            sink.write(COMMA);
+        }
+        record.writeTo(sink);
+        record.reset();
+        if (format == BatchFormat.NDJSON) {
+            sink.write(LINE_FEED);
+        }
+        written++;
+        return true;
+    }
+
+    /**
+     * Closes the framing and flushes the sink.
+     */
+    public BatchResult finish() throws IOException {
+        generator.close();
+        if (format == BatchFormat.JSON_ARRAY) {
+            sink.write(ARRAY_END);
+        }
+        sink.flush();
+        return new BatchResult(records, written, failures);
+    }
+
+    private JsonGenerator newGenerator() throws IOException {
+        JsonGenerator created = factory.createGenerator(record);
+        if (JsonFactory.FORMAT_NAME_JSON.equals(factory.getFormatName())) {
+            // Records are framed by this writer, not by the generator's root-value separator; binary
+            // generators have none.
+            created.setRootValueSeparator(null);
+        }
+        return created;
+    }
+
+    @FunctionalInterface
+    public interface RecordWriter {
+        void writeTo(JsonGenerator generator) throws IOException;
+    }
+}
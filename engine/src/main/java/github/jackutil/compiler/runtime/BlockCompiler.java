@@ -0,0 +1,309 @@
+package github.jackutil.compiler.runtime;
+
+import static org.objectweb.asm.Opcodes.AALOAD;
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PRIVATE;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.BIPUSH;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.GETFIELD;
+import static org.objectweb.asm.Opcodes.ICONST_0;
+import static org.objectweb.asm.Opcodes.ICONST_1;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.PUTFIELD;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.SIPUSH;
+import static org.objectweb.asm.Opcodes.V17;
+
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+
+import org.objectweb.asm.ClassTooLargeException;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodTooLargeException;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import github.jackutil.compiler.ir.ConstFragment;
+import github.jackutil.compiler.ir.InstructionBlock;
+import github.jackutil.compiler.ir.InstructionProgram;
+import github.jackutil.compiler.ir.enums.OpCode;
+
+/**
+ * Translates instruction blocks into hidden classes implementing {@link CompiledBlock}.
+ * Every block becomes straight-line {@link JsonGenerator} calls: scalar literals are loaded from the class constant
+ * pool, pre-encoded field names and structured literals from a per-class constants array, and nested mappings are
+ * called through a shared block table so blocks that reference each other can be linked once all classes exist.
+ */
+final class BlockCompiler {
+    // Long blocks are split into helper methods so no single method exceeds the JIT's huge-method limit.
+    private static final int CHUNK_SIZE = 256;
+    private static final int MAX_CONSTANT_UTF8 = 65_535;
+
+    private static final String CLASS_NAME = "github/jackutil/compiler/runtime/GeneratedBlock";
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String STRING = Type.getInternalName(String.class);
+    private static final String BIG_DECIMAL = Type.getInternalName(BigDecimal.class);
+    private static final String SERIALIZABLE_STRING = Type.getInternalName(SerializableString.class);
+    private static final String CONST_FRAGMENT = Type.getInternalName(ConstFragment.class);
+    private static final String CONST_WRITER = Type.getInternalName(ConstWriter.class);
+    private static final String COMPILED_BLOCK = Type.getInternalName(CompiledBlock.class);
+    private static final String CONTEXT = Type.getInternalName(ExecutionContext.class);
+    private static final String GENERATOR = Type.getInternalName(JsonGenerator.class);
+    private static final String INTERPRETER = Type.getInternalName(MappingInterpreter.class);
+    private static final String VARIABLES = Type.getInternalName(VariableResolver.class);
+    private static final String INPUTS = Type.getInternalName(InputResolver.class);
+    private static final String[] EXCEPTIONS = {"java/io/IOException"};
+
+    private static final String BLOCKS_DESC = "[L" + COMPILED_BLOCK + ";";
+    private static final String CONSTANTS_DESC = "[L" + OBJECT + ";";
+    private static final String CONSTRUCTOR_DESC = "(" + BLOCKS_DESC + CONSTANTS_DESC + ")V";
+    private static final String EXECUTE_DESC = "(L" + CONTEXT + ";L" + GENERATOR + ";)V";
+    private static final String WRITE_VALUE_DESC = "(L" + GENERATOR + ";L" + OBJECT + ";)V";
+
+    private static final int THIS = 0;
+    private static final int CONTEXT_SLOT = 1;
+    private static final int GENERATOR_SLOT = 2;
+
+    private final InstructionProgram program;
+    private final MappingInterpreter interpreter = new MappingInterpreter();
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    BlockCompiler(InstructionProgram program) {
+        this.program = program;
+    }
+
+    CompiledBlock[] compileAll() {
+        List<InstructionBlock> blocks = program.blocks();
+        CompiledBlock[] compiled = new CompiledBlock[blocks.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compile(i, blocks.get(i), compiled);
+        }
+        return compiled;
+    }
+
+    private CompiledBlock compile(int index, InstructionBlock block, CompiledBlock[] blocks) {
+        List<Object> constants = new ArrayList<>();
+        byte[] bytes;
+        try {
+            bytes = generate(block, constants);
+        } catch (ClassTooLargeException | MethodTooLargeException ex) {
+            // A block too large for one class file keeps running on the interpreter instead of failing the compile.
+            return (context, generator) -> interpreter.execute(context, index);
+        }
+        try {
+            Class<?> type = lookup.defineHiddenClass(bytes, true).lookupClass();
+            return (CompiledBlock) type.getConstructor(CompiledBlock[].class, Object[].class)
+                .newInstance(blocks, constants.toArray());
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Failed to load generated code for mapping block " + index, ex);
+        }
+    }
+
+    private byte[] generate(InstructionBlock block, List<Object> constants) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V17, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, CLASS_NAME, null, OBJECT, new String[] {COMPILED_BLOCK});
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "blocks", BLOCKS_DESC, null, null).visitEnd();
+        writer.visitField(ACC_PRIVATE | ACC_FINAL, "constants", CONSTANTS_DESC, null, null).visitEnd();
+        generateConstructor(writer);
+
+        int length = block.length();
+        if (length <= CHUNK_SIZE) {
+            MethodVisitor execute = beginExecute(writer, ACC_PUBLIC, "execute");
+            emitRange(execute, block, 0, length, constants);
+            endMethod(execute);
+        } else {
+            int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                MethodVisitor part = beginExecute(writer, ACC_PRIVATE, "chunk" + chunk);
+                int start = chunk * CHUNK_SIZE;
+                emitRange(part, block, start, Math.min(start + CHUNK_SIZE, length), constants);
+                endMethod(part);
+            }
+            MethodVisitor execute = beginExecute(writer, ACC_PUBLIC, "execute");
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                execute.visitVarInsn(ALOAD, THIS);
+                execute.visitVarInsn(ALOAD, CONTEXT_SLOT);
+                execute.visitVarInsn(ALOAD, GENERATOR_SLOT);
+                execute.visitMethodInsn(INVOKESPECIAL, CLASS_NAME, "chunk" + chunk, EXECUTE_DESC, false);
+            }
+            endMethod(execute);
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private void generateConstructor(ClassWriter writer) {
+        MethodVisitor init = writer.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, THIS);
+        init.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+        init.visitVarInsn(ALOAD, THIS);
+        init.visitVarInsn(ALOAD, 1);
+        init.visitFieldInsn(PUTFIELD, CLASS_NAME, "blocks", BLOCKS_DESC);
+        init.visitVarInsn(ALOAD, THIS);
+        init.visitVarInsn(ALOAD, 2);
+        init.visitFieldInsn(PUTFIELD, CLASS_NAME, "constants", CONSTANTS_DESC);
+        endMethod(init);
+    }
+
+    private MethodVisitor beginExecute(ClassWriter writer, int access, String name) {
+        MethodVisitor method = writer.visitMethod(access, name, EXECUTE_DESC, null, EXCEPTIONS);
+        method.visitCode();
+        return method;
+    }
+
+    private void endMethod(MethodVisitor method) {
+        method.visitInsn(RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private void emitRange(MethodVisitor method, InstructionBlock block, int start, int end, List<Object> constants) {
+        int[] code = block.code();
+        for (int i = start; i < end; i++) {
+            OpCode opcode = InstructionBlock.opcode(code[i]);
+            int operand = InstructionBlock.operand(code[i]);
+            switch (opcode) {
+                case BEGIN_OBJECT -> callGenerator(method, "writeStartObject", "()V");
+                case END_OBJECT -> callGenerator(method, "writeEndObject", "()V");
+                case BEGIN_ARRAY -> callGenerator(method, "writeStartArray", "()V");
+                case END_ARRAY -> callGenerator(method, "writeEndArray", "()V");
+                case WRITE_FIELD -> {
+                    // Pre-encoded names skip escaping; they live in the constants array since ldc cannot load them.
+                    method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+                    pushConstant(method, program.encodedFieldNames().get(operand), constants);
+                    method.visitTypeInsn(CHECKCAST, SERIALIZABLE_STRING);
+                    invokeGenerator(method, "writeFieldName", "(L" + SERIALIZABLE_STRING + ";)V");
+                }
+                case WRITE_LITERAL -> emitLiteral(method, program.literals().get(operand), constants);
+                case WRITE_STRING -> emitLiteral(method, program.scalars().string(operand), constants);
+                case WRITE_LONG -> emitLiteral(method, program.scalars().longValue(operand), constants);
+                case WRITE_DECIMAL -> {
+                    method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+                    pushConstant(method, program.scalars().decimal(operand), constants);
+                    method.visitTypeInsn(CHECKCAST, BIG_DECIMAL);
+                    invokeGenerator(method, "writeNumber", "(L" + BIG_DECIMAL + ";)V");
+                }
+                case WRITE_BOOL -> emitLiteral(method, operand != 0, constants);
+                case WRITE_NULL -> emitLiteral(method, null, constants);
+                case WRITE_VARIABLE -> emitResolved(method, "variableResolver", VARIABLES, operand);
+                case WRITE_INPUT -> emitResolved(method, "inputResolver", INPUTS, operand);
+                case WRITE_MAPPING -> {
+                    method.visitVarInsn(ALOAD, THIS);
+                    method.visitFieldInsn(GETFIELD, CLASS_NAME, "blocks", BLOCKS_DESC);
+                    pushInt(method, operand);
+                    method.visitInsn(AALOAD);
+                    method.visitVarInsn(ALOAD, CONTEXT_SLOT);
+                    method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+                    method.visitMethodInsn(INVOKEINTERFACE, COMPILED_BLOCK, "execute", EXECUTE_DESC, true);
+                }
+                case WRITE_CONST -> {
+                    method.visitVarInsn(ALOAD, CONTEXT_SLOT);
+                    method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+                    pushConstant(method, program.constFragments().get(operand), constants);
+                    method.visitTypeInsn(CHECKCAST, CONST_FRAGMENT);
+                    method.visitMethodInsn(INVOKESTATIC, CONST_WRITER, "write",
+                        "(L" + CONTEXT + ";L" + GENERATOR + ";L" + CONST_FRAGMENT + ";)V", false);
+                }
+                case NO_OP -> {
+                    // reserved for future use
+                }
+                default -> throw new IllegalArgumentException("Unexpected value: " + opcode);
+            }
+        }
+    }
+
+    private void emitLiteral(MethodVisitor method, Object value, List<Object> constants) {
+        method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+        if (value == null) {
+            invokeGenerator(method, "writeNull", "()V");
+        } else if (value instanceof String s) {
+            pushString(method, s, constants);
+            invokeGenerator(method, "writeString", "(L" + STRING + ";)V");
+        } else if (value instanceof Boolean b) {
+            method.visitInsn(b ? ICONST_1 : ICONST_0);
+            invokeGenerator(method, "writeBoolean", "(Z)V");
+        } else if (value instanceof Integer i) {
+            pushInt(method, i);
+            invokeGenerator(method, "writeNumber", "(I)V");
+        } else if (value instanceof Long l) {
+            method.visitLdcInsn(l);
+            invokeGenerator(method, "writeNumber", "(J)V");
+        } else if (value instanceof Double d) {
+            method.visitLdcInsn(d);
+            invokeGenerator(method, "writeNumber", "(D)V");
+        } else {
+            pushConstant(method, value, constants);
+            method.visitMethodInsn(INVOKESTATIC, INTERPRETER, "writeValue", WRITE_VALUE_DESC, false);
+        }
+    }
+
+    private void emitResolved(MethodVisitor method, String accessor, String resolver, int id) {
+        method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+        method.visitVarInsn(ALOAD, CONTEXT_SLOT);
+        method.visitMethodInsn(INVOKEVIRTUAL, CONTEXT, accessor, "()L" + resolver + ";", false);
+        pushInt(method, id);
+        method.visitMethodInsn(INVOKEVIRTUAL, resolver, "valueOf", "(I)L" + OBJECT + ";", false);
+        method.visitMethodInsn(INVOKESTATIC, INTERPRETER, "writeValue", WRITE_VALUE_DESC, false);
+    }
+
+    private void callGenerator(MethodVisitor method, String name, String descriptor) {
+        method.visitVarInsn(ALOAD, GENERATOR_SLOT);
+        invokeGenerator(method, name, descriptor);
+    }
+
+    private void invokeGenerator(MethodVisitor method, String name, String descriptor) {
+        method.visitMethodInsn(INVOKEVIRTUAL, GENERATOR, name, descriptor, false);
+    }
+
+    private void pushString(MethodVisitor method, String value, List<Object> constants) {
+        if (utf8Length(value) <= MAX_CONSTANT_UTF8) {
+            method.visitLdcInsn(value);
+        } else {
+            pushConstant(method, value, constants);
+            method.visitTypeInsn(CHECKCAST, STRING);
+        }
+    }
+
+    private void pushConstant(MethodVisitor method, Object value, List<Object> constants) {
+        method.visitVarInsn(ALOAD, THIS);
+        method.visitFieldInsn(GETFIELD, CLASS_NAME, "constants", CONSTANTS_DESC);
+        pushInt(method, constants.size());
+        method.visitInsn(AALOAD);
+        constants.add(value);
+    }
+
+    private static void pushInt(MethodVisitor method, int value) {
+        if (value >= -1 && value <= 5) {
+            method.visitInsn(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            method.visitIntInsn(BIPUSH, value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            method.visitIntInsn(SIPUSH, value);
+        } else {
+            method.visitLdcInsn(value);
+        }
+    }
+
+    private static int utf8Length(String value) {
+        // Modified UTF-8 as stored in the constant pool: NUL takes two bytes, supplementary chars two surrogates.
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            length += c != 0 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        return length;
+    }
+}
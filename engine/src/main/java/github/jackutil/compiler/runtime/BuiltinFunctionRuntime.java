@@ -1,11 +1,7 @@
 package github.jackutil.compiler.runtime;
 
 import java.math.BigDecimal;
-import java.time.Instant;
-import java.time.ZoneOffset;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Clock;
 import java.util.Locale;
 import java.util.Map;
 
@@ -15,14 +11,30 @@ import java.util.concurrent.ThreadLocalRandom;
 import github.jackutil.compiler.ir.FunctionDef;
 
 final class BuiltinFunctionRuntime implements FunctionRuntime {
-    private static final ConcurrentHashMap<String, DateTimeFormatter> FORMATTERS = new ConcurrentHashMap<>();
+    private static final BigDecimal LONG_MIN = BigDecimal.valueOf(Long.MIN_VALUE);
+    private static final BigDecimal LONG_MAX = BigDecimal.valueOf(Long.MAX_VALUE);
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final String DEFAULT_DATE_PATTERN = "yyyy-MM-dd'T'HH:mm:ss'Z'";
 
     private final Builtin builtin;
-    private final List<Object> defaultArgs;
+    private final UuidSource uuids;
+    private final Clock clock;
+    private final ConcurrentHashMap<String, TimestampCache> timestamps = new ConcurrentHashMap<>();
+    private final TimestampCache isoInstant = TimestampCache.isoInstant();
 
     BuiltinFunctionRuntime(FunctionDef function) {
+        this(function, UuidSource.configured(), Clock.systemUTC());
+    }
+
+    BuiltinFunctionRuntime(FunctionDef function, UuidSource uuids) {
+        this(function, uuids, Clock.systemUTC());
+    }
+
+    /** A runtime whose {@code date} builtins read {@code clock}; its formatted-time caches are per runtime. */
+    BuiltinFunctionRuntime(FunctionDef function, UuidSource uuids, Clock clock) {
         this.builtin = Builtin.fromName((String) function.payload());
-        this.defaultArgs = function.args() == null ? List.of() : function.args();
+        this.uuids = uuids;
+        this.clock = clock;
     }
 
     @Override
@@ -30,116 +42,222 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         builtin.validate(value);
     }
 
+    /**
+     * Dispatches a compiled argument vector to the builtin's entry point for its arity, so the common call shapes
+     * read their arguments as parameters and allocate nothing but the result.
+     */
     @Override
-    public Object derive(List<Object> args) {
-        List<Object> effectiveArgs = mergeArgs(args);
-        return builtin.derive(effectiveArgs);
+    public Object derive(Object[] args) {
+        return switch (args.length) {
+            case 0 -> builtin.derive0(this);
+            case 1 -> builtin.derive1(this, args[0]);
+            case 2 -> builtin.derive2(this, args[0], args[1]);
+            default -> builtin.deriveN(this, args);
+        };
     }
 
-    private List<Object> mergeArgs(List<Object> callArgs) {
-        boolean hasCallArgs = callArgs != null && !callArgs.isEmpty();
-        if (!hasCallArgs) {
-            return defaultArgs;
-        }
-        if (defaultArgs.isEmpty()) {
-            return callArgs;
+    private String formatNow(String pattern) {
+        TimestampCache cache = timestamps.get(pattern);
+        if (cache == null) {
+            cache = timestamps.computeIfAbsent(pattern, TimestampCache::ofPattern);
         }
-        List<Object> merged = new ArrayList<>(callArgs);
-        merged.addAll(defaultArgs);
-        return merged;
+        return cache.format(clock);
     }
 
+    /**
+     * Each builtin implements {@link #deriveN} for any argument count and overrides the fixed-arity entry points of
+     * the call shapes it is used with. Every entry point receives the calling runtime, whose configuration the
+     * generating builtins read. The defaults repack their arguments into an array, which only call shapes a
+     * builtin does not expect, typically ones that end in an argument error, ever reach.
+     */
     private enum Builtin {
         DATE {
             @Override
-            Object derive(List<Object> args) {
-                String pattern = args.isEmpty() ? "yyyy-MM-dd'T'HH:mm:ss'Z'" : String.valueOf(args.get(0));
-                DateTimeFormatter formatter = FORMATTERS.computeIfAbsent(pattern,
-                    p -> DateTimeFormatter.ofPattern(p).withZone(ZoneOffset.UTC));
-                return formatter.format(Instant.now());
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return runtime.formatNow(DEFAULT_DATE_PATTERN);
+            }
+
+            @Override
+            Object derive1(BuiltinFunctionRuntime runtime, Object pattern) {
+                return runtime.formatNow(String.valueOf(pattern));
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object pattern, Object ignored) {
+                return derive1(runtime, pattern);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return args.length == 0 ? derive0(runtime) : derive1(runtime, args[0]);
             }
         },
         DATE_UTC {
             @Override
-            Object derive(List<Object> args) {
-                return DateTimeFormatter.ISO_INSTANT.withZone(ZoneOffset.UTC).format(Instant.now());
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return runtime.isoInstant.format(runtime.clock);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return derive0(runtime);
             }
         },
         DATE_NOW_MILLIS {
             @Override
-            Object derive(List<Object> args) {
-                return System.currentTimeMillis();
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return runtime.clock.millis();
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return derive0(runtime);
             }
         },
         POS_INT {
             @Override
-            Object derive(List<Object> args) {
-                int length = args.isEmpty() ? 1 : toInt(args.get(0));
-                String prefix = args.size() > 1 ? String.valueOf(args.get(1)) : "";
-                if (length <= 0) {
-                    throw new IllegalArgumentException("pos_int length must be positive");
-                }
-                StringBuilder builder = new StringBuilder(prefix);
-                ThreadLocalRandom random = ThreadLocalRandom.current();
-                for (int i = 0; i < length; i++) {
-                    builder.append(random.nextInt(10));
-                }
-                return builder.toString();
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return posInt(1, "");
+            }
+
+            @Override
+            Object derive1(BuiltinFunctionRuntime runtime, Object length) {
+                return posInt(toInt(length), "");
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object length, Object prefix) {
+                return posInt(toInt(length), String.valueOf(prefix));
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return switch (args.length) {
+                    case 0 -> derive0(runtime);
+                    case 1 -> derive1(runtime, args[0]);
+                    default -> derive2(runtime, args[0], args[1]);
+                };
             }
         },
         POS_INT_BETWEEN {
             @Override
-            Object derive(List<Object> args) {
-                if (args.size() < 2) {
-                    throw new IllegalArgumentException("pos_int_between requires min and max arguments");
-                }
-                long min = toLong(args.get(0));
-                long max = toLong(args.get(1));
+            Object derive2(BuiltinFunctionRuntime runtime, Object minArg, Object maxArg) {
+                long min = toLong(minArg);
+                long max = toLong(maxArg);
                 if (min > max) {
                     throw new IllegalArgumentException("pos_int_between min must be <= max");
                 }
                 return ThreadLocalRandom.current().nextLong(min, max + 1);
             }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 2, "pos_int_between requires min and max arguments");
+                return derive2(runtime, args[0], args[1]);
+            }
         },
         UUID_FN {
             @Override
-            Object derive(List<Object> args) {
-                return java.util.UUID.randomUUID().toString();
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return runtime.uuids.next(runtime.clock, UuidSource.CANONICAL);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return derive0(runtime);
             }
         },
         UUID_COMPACT {
             @Override
-            Object derive(List<Object> args) {
-                return java.util.UUID.randomUUID().toString().replace("-", "");
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return runtime.uuids.next(runtime.clock, UuidSource.COMPACT);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return derive0(runtime);
             }
         },
         UUID_URN {
             @Override
-            Object derive(List<Object> args) {
-                return "urn:uuid:" + java.util.UUID.randomUUID();
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return runtime.uuids.next(runtime.clock, UuidSource.URN);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                return derive0(runtime);
             }
         },
         UPPERCASE {
             @Override
-            Object derive(List<Object> args) {
-                return toStringArg(args, 0).toUpperCase(Locale.ROOT);
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                return text(value).toUpperCase(Locale.ROOT);
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object value, Object ignored) {
+                return derive1(runtime, value);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 1, "Missing argument");
+                return derive1(runtime, args[0]);
             }
         },
         LOWERCASE {
             @Override
-            Object derive(List<Object> args) {
-                return toStringArg(args, 0).toLowerCase(Locale.ROOT);
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                return text(value).toLowerCase(Locale.ROOT);
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object value, Object ignored) {
+                return derive1(runtime, value);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 1, "Missing argument");
+                return derive1(runtime, args[0]);
             }
         },
         TRIM {
             @Override
-            Object derive(List<Object> args) {
-                return toStringArg(args, 0).trim();
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                return text(value).trim();
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object value, Object ignored) {
+                return derive1(runtime, value);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 1, "Missing argument");
+                return derive1(runtime, args[0]);
             }
         },
         CONCAT {
             @Override
-            Object derive(List<Object> args) {
+            Object derive0(BuiltinFunctionRuntime runtime) {
+                return "";
+            }
+
+            @Override
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                return text(value);
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object first, Object second) {
+                return text(first).concat(text(second));
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 StringBuilder builder = new StringBuilder();
                 for (Object arg : args) {
                     builder.append(arg == null ? "" : arg);
@@ -149,53 +267,81 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         },
         PAD_LEFT {
             @Override
-            Object derive(List<Object> args) {
-                if (args.size() < 2) {
-                    throw new IllegalArgumentException("pad_left requires value and length");
-                }
-                String value = String.valueOf(args.get(0));
-                int length = toInt(args.get(1));
-                char pad = args.size() > 2 ? String.valueOf(args.get(2)).charAt(0) : ' ';
-                return pad(value, length, pad, true);
+            Object derive2(BuiltinFunctionRuntime runtime, Object value, Object length) {
+                return pad(String.valueOf(value), toInt(length), ' ', true);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 2, "pad_left requires value and length");
+                char pad = args.length > 2 ? String.valueOf(args[2]).charAt(0) : ' ';
+                return pad(String.valueOf(args[0]), toInt(args[1]), pad, true);
             }
         },
         PAD_RIGHT {
             @Override
-            Object derive(List<Object> args) {
-                if (args.size() < 2) {
-                    throw new IllegalArgumentException("pad_right requires value and length");
-                }
-                String value = String.valueOf(args.get(0));
-                int length = toInt(args.get(1));
-                char pad = args.size() > 2 ? String.valueOf(args.get(2)).charAt(0) : ' ';
-                return pad(value, length, pad, false);
+            Object derive2(BuiltinFunctionRuntime runtime, Object value, Object length) {
+                return pad(String.valueOf(value), toInt(length), ' ', false);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 2, "pad_right requires value and length");
+                char pad = args.length > 2 ? String.valueOf(args[2]).charAt(0) : ' ';
+                return pad(String.valueOf(args[0]), toInt(args[1]), pad, false);
             }
         },
         LOOKUP {
             @Override
-            Object derive(List<Object> args) {
-                if (args.isEmpty()) {
-                    throw new IllegalArgumentException("lookup requires at least a key argument");
-                }
-                Object key = args.get(0);
-                Map<?, ?> map = Map.of();
-                Object defaultValue = null;
-                if (args.size() > 1 && args.get(1) instanceof Map<?, ?> m) {
-                    map = m;
-                    if (args.size() > 2) {
-                        defaultValue = args.get(2);
-                    }
-                } else if (args.size() > 1) {
-                    throw new IllegalArgumentException("lookup second argument must be a map");
-                }
-                Object value = map.get(key);
-                return value != null ? value : defaultValue;
+            Object derive1(BuiltinFunctionRuntime runtime, Object key) {
+                return null;
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object key, Object table) {
+                return lookup(key, table, null);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
+                ensureArgs(args, 1, "lookup requires at least a key argument");
+                return switch (args.length) {
+                    case 1 -> derive1(runtime, args[0]);
+                    case 2 -> derive2(runtime, args[0], args[1]);
+                    default -> lookup(args[0], args[1], args[2]);
+                };
             }
         },
         ADD {
             @Override
-            Object derive(List<Object> args) {
+            Object derive2(BuiltinFunctionRuntime runtime, Object a, Object b) {
+                if (isLong(a) && isLong(b)) {
+                    long x = longValue(a);
+                    long y = longValue(b);
+                    long sum = x + y;
+                    if (((x ^ sum) & (y ^ sum)) >= 0) {
+                        return sum;
+                    }
+                }
+                return reduceNumber(toBigDecimal(a).add(toBigDecimal(b)));
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 2, "add requires at least two arguments");
+                if (allLongs(args)) {
+                    long sum = 0;
+                    boolean overflow = false;
+                    for (Object arg : args) {
+                        long operand = longValue(arg);
+                        long next = sum + operand;
+                        overflow |= ((sum ^ next) & (operand ^ next)) < 0;
+                        sum = next;
+                    }
+                    if (!overflow) {
+                        return sum;
+                    }
+                }
                 BigDecimal sum = BigDecimal.ZERO;
                 for (Object arg : args) {
                     sum = sum.add(toBigDecimal(arg));
@@ -205,19 +351,72 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         },
         SUBTRACT {
             @Override
-            Object derive(List<Object> args) {
+            Object derive2(BuiltinFunctionRuntime runtime, Object a, Object b) {
+                if (isLong(a) && isLong(b)) {
+                    long x = longValue(a);
+                    long y = longValue(b);
+                    long result = x - y;
+                    if (((x ^ y) & (x ^ result)) >= 0) {
+                        return result;
+                    }
+                }
+                return reduceNumber(toBigDecimal(a).subtract(toBigDecimal(b)));
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 2, "subtract requires at least two arguments");
-                BigDecimal result = toBigDecimal(args.get(0));
-                for (int i = 1; i < args.size(); i++) {
-                    result = result.subtract(toBigDecimal(args.get(i)));
+                if (allLongs(args)) {
+                    long result = longValue(args[0]);
+                    boolean overflow = false;
+                    for (int i = 1; i < args.length; i++) {
+                        long operand = longValue(args[i]);
+                        long next = result - operand;
+                        overflow |= ((result ^ operand) & (result ^ next)) < 0;
+                        result = next;
+                    }
+                    if (!overflow) {
+                        return result;
+                    }
+                }
+                BigDecimal result = toBigDecimal(args[0]);
+                for (int i = 1; i < args.length; i++) {
+                    result = result.subtract(toBigDecimal(args[i]));
                 }
                 return reduceNumber(result);
             }
         },
         MULTIPLY {
             @Override
-            Object derive(List<Object> args) {
+            Object derive2(BuiltinFunctionRuntime runtime, Object a, Object b) {
+                if (isLong(a) && isLong(b)) {
+                    long x = longValue(a);
+                    long y = longValue(b);
+                    long product = x * y;
+                    if (Math.multiplyHigh(x, y) == (product >> 63)) {
+                        return product;
+                    }
+                }
+                return reduceNumber(toBigDecimal(a).multiply(toBigDecimal(b)));
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 2, "multiply requires at least two arguments");
+                if (allLongs(args)) {
+                    long result = 1;
+                    boolean overflow = false;
+                    for (Object arg : args) {
+                        long operand = longValue(arg);
+                        long high = Math.multiplyHigh(result, operand);
+                        result *= operand;
+                        // The product fits when the high word is just the sign extension of the low word.
+                        overflow |= high != (result >> 63);
+                    }
+                    if (!overflow) {
+                        return result;
+                    }
+                }
                 BigDecimal result = BigDecimal.ONE;
                 for (Object arg : args) {
                     result = result.multiply(toBigDecimal(arg));
@@ -227,11 +426,16 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         },
         DIVIDE {
             @Override
-            Object derive(List<Object> args) {
+            Object derive2(BuiltinFunctionRuntime runtime, Object dividend, Object divisor) {
+                return reduceNumber(toBigDecimal(dividend).divide(toBigDecimal(divisor)));
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 2, "divide requires at least two arguments");
-                BigDecimal result = toBigDecimal(args.get(0));
-                for (int i = 1; i < args.size(); i++) {
-                    BigDecimal divisor = toBigDecimal(args.get(i));
+                BigDecimal result = toBigDecimal(args[0]);
+                for (int i = 1; i < args.length; i++) {
+                    BigDecimal divisor = toBigDecimal(args[i]);
                     result = result.divide(divisor);
                 }
                 return reduceNumber(result);
@@ -239,11 +443,33 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         },
         MIN {
             @Override
-            Object derive(List<Object> args) {
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                return isLong(value) ? (Object) longValue(value) : reduceNumber(toBigDecimal(value));
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object a, Object b) {
+                if (isLong(a) && isLong(b)) {
+                    return Math.min(longValue(a), longValue(b));
+                }
+                BigDecimal x = toBigDecimal(a);
+                BigDecimal y = toBigDecimal(b);
+                return reduceNumber(y.compareTo(x) < 0 ? y : x);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 1, "min requires at least one argument");
-                BigDecimal min = toBigDecimal(args.get(0));
-                for (int i = 1; i < args.size(); i++) {
-                    BigDecimal current = toBigDecimal(args.get(i));
+                if (allLongs(args)) {
+                    long min = longValue(args[0]);
+                    for (int i = 1; i < args.length; i++) {
+                        min = Math.min(min, longValue(args[i]));
+                    }
+                    return min;
+                }
+                BigDecimal min = toBigDecimal(args[0]);
+                for (int i = 1; i < args.length; i++) {
+                    BigDecimal current = toBigDecimal(args[i]);
                     if (current.compareTo(min) < 0) {
                         min = current;
                     }
@@ -253,11 +479,33 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         },
         MAX {
             @Override
-            Object derive(List<Object> args) {
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                return isLong(value) ? (Object) longValue(value) : reduceNumber(toBigDecimal(value));
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object a, Object b) {
+                if (isLong(a) && isLong(b)) {
+                    return Math.max(longValue(a), longValue(b));
+                }
+                BigDecimal x = toBigDecimal(a);
+                BigDecimal y = toBigDecimal(b);
+                return reduceNumber(y.compareTo(x) > 0 ? y : x);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 1, "max requires at least one argument");
-                BigDecimal max = toBigDecimal(args.get(0));
-                for (int i = 1; i < args.size(); i++) {
-                    BigDecimal current = toBigDecimal(args.get(i));
+                if (allLongs(args)) {
+                    long max = longValue(args[0]);
+                    for (int i = 1; i < args.length; i++) {
+                        max = Math.max(max, longValue(args[i]));
+                    }
+                    return max;
+                }
+                BigDecimal max = toBigDecimal(args[0]);
+                for (int i = 1; i < args.length; i++) {
+                    BigDecimal current = toBigDecimal(args[i]);
                     if (current.compareTo(max) > 0) {
                         max = current;
                     }
@@ -267,10 +515,22 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
         },
         ABS {
             @Override
-            Object derive(List<Object> args) {
+            Object derive1(BuiltinFunctionRuntime runtime, Object value) {
+                if (isLong(value) && longValue(value) != Long.MIN_VALUE) {
+                    return Math.abs(longValue(value));
+                }
+                return reduceNumber(toBigDecimal(value).abs());
+            }
+
+            @Override
+            Object derive2(BuiltinFunctionRuntime runtime, Object value, Object ignored) {
+                return derive1(runtime, value);
+            }
+
+            @Override
+            Object deriveN(BuiltinFunctionRuntime runtime, Object[] args) {
                 ensureArgs(args, 1, "abs requires one argument");
-                BigDecimal value = toBigDecimal(args.get(0));
-                return reduceNumber(value.abs());
+                return derive1(runtime, args[0]);
             }
         };
 
@@ -278,7 +538,19 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
             // default no-op
         }
 
-        abstract Object derive(List<Object> args);
+        Object derive0(BuiltinFunctionRuntime runtime) {
+            return deriveN(runtime, NO_ARGS);
+        }
+
+        Object derive1(BuiltinFunctionRuntime runtime, Object a) {
+            return deriveN(runtime, new Object[] {a});
+        }
+
+        Object derive2(BuiltinFunctionRuntime runtime, Object a, Object b) {
+            return deriveN(runtime, new Object[] {a, b});
+        }
+
+        abstract Object deriveN(BuiltinFunctionRuntime runtime, Object[] args);
 
         static Builtin fromName(String name) {
             return switch (name) {
@@ -308,8 +580,8 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
             };
         }
 
-        static void ensureArgs(List<Object> args, int expected, String message) {
-            if (args == null || args.size() < expected) {
+        static void ensureArgs(Object[] args, int expected, String message) {
+            if (args.length < expected) {
                 throw new IllegalArgumentException(message);
             }
         }
@@ -328,12 +600,57 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
             return Long.parseLong(String.valueOf(value));
         }
 
-        static String toStringArg(List<Object> args, int index) {
-            ensureArgs(args, index + 1, "Missing argument");
-            Object value = args.get(index);
+        static String text(Object value) {
             return value == null ? "" : value.toString();
         }
 
+        static String posInt(int length, String prefix) {
+            if (length <= 0) {
+                throw new IllegalArgumentException("pos_int length must be positive");
+            }
+            StringBuilder builder = new StringBuilder(prefix);
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < length; i++) {
+                builder.append(random.nextInt(10));
+            }
+            return builder.toString();
+        }
+
+        static Object lookup(Object key, Object table, Object defaultValue) {
+            Object value;
+            if (table instanceof LookupTable compiled) {
+                value = compiled.get(key);
+            } else if (table instanceof Map<?, ?> map) {
+                value = map.get(key);
+            } else {
+                throw new IllegalArgumentException("lookup second argument must be a map");
+            }
+            return value != null ? value : defaultValue;
+        }
+
+        /**
+         * Whether every argument is a boxed integral type; such arguments take the {@code long} fast paths,
+         * whose results equal what {@link #reduceNumber} makes of the exact decimal result. Anything else,
+         * and any overflow, goes through {@code BigDecimal}. Overflow is detected with sign arithmetic rather
+         * than the {@code Math.*Exact} methods, whose exception would cost far more than the decimal fallback.
+         */
+        static boolean allLongs(Object[] args) {
+            for (Object arg : args) {
+                if (!isLong(arg)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        static boolean isLong(Object value) {
+            return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+        }
+
+        static long longValue(Object value) {
+            return ((Number) value).longValue();
+        }
+
         static BigDecimal toBigDecimal(Object value) {
             if (value instanceof BigDecimal bd) {
                 return bd;
@@ -358,12 +675,10 @@ final class BuiltinFunctionRuntime implements FunctionRuntime {
 
         static Object reduceNumber(BigDecimal value) {
             BigDecimal stripped = value.stripTrailingZeros();
-            if (stripped.scale() <= 0) {
-                try {
-                    return stripped.longValueExact();
-                } catch (ArithmeticException ignored) {
-                    // fall through
-                }
+            // Range checks instead of catching longValueExact's exception, which dominated overflowing calls.
+            if (stripped.scale() <= 0 && (stripped.precision() - stripped.scale() < 19
+                    || stripped.compareTo(LONG_MIN) >= 0 && stripped.compareTo(LONG_MAX) <= 0)) {
+                return stripped.longValueExact();
             }
             try {
                 return stripped.doubleValue();
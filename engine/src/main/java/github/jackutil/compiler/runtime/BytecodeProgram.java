@@ -0,0 +1,30 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.Objects;
+
+import github.jackutil.compiler.ir.InstructionProgram;
+
+/**
+ * Hidden-class translation of an {@link InstructionProgram}, produced when a config is compiled with the
+ * bytecode backend. Block indexes match the program they were generated from.
+ */
+public final class BytecodeProgram {
+    private final CompiledBlock[] blocks;
+
+    private BytecodeProgram(CompiledBlock[] blocks) {
+        this.blocks = blocks;
+    }
+
+    public static BytecodeProgram generate(InstructionProgram program) {
+        Objects.requireNonNull(program, "program");
+        return new BytecodeProgram(new BlockCompiler(program).compileAll());
+    }
+
+    public int blockCount() {
+        return blocks.length;
+    }
+
+    CompiledBlock block(int index) {
+        return blocks[index];
+    }
+}
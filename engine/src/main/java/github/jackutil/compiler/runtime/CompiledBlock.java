@@ -0,0 +1,13 @@
+package github.jackutil.compiler.runtime;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * One instruction block translated by {@link BlockCompiler}. Implementations are generated hidden classes.
+ */
+interface CompiledBlock {
+
+    void execute(ExecutionContext context, JsonGenerator generator) throws IOException;
+}
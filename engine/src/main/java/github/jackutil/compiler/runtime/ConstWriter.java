@@ -0,0 +1,105 @@
+package github.jackutil.compiler.runtime;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.core.util.DefaultIndenter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+
+import github.jackutil.compiler.ir.ConstFragment;
+
+/**
+ * Pre-serializes constant subtrees at compile time and writes them back for {@code WRITE_CONST}.
+ * Raw text is only used where it is byte-for-byte what structural writes would produce: plain JSON text generators
+ * without custom escaping or number formatting, either compact or with an unmodified default pretty printer.
+ * Everything else (token buffers, binary formats, custom printers) gets the literal written structurally.
+ */
+final class ConstWriter {
+    static final int UNRESOLVED = -1;
+    static final int STRUCTURAL = 0;
+    static final int COMPACT = 1;
+    static final int PRETTY = 2;
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final Map<String, Object> PROBE = Map.of("a", List.of(1, Map.of()), "b", Map.of("c", List.of()));
+    private static final String DEFAULT_PRETTY_PROBE = render(PROBE, new DefaultPrettyPrinter());
+
+    private ConstWriter() {
+    }
+
+    static boolean isConstant(Object value) {
+        return value instanceof Map<?, ?> || value instanceof List<?>;
+    }
+
+    static ConstFragment fragment(Object value) {
+        return new ConstFragment(value, render(value, null), render(value, new DefaultPrettyPrinter()));
+    }
+
+    static void write(ExecutionContext context, JsonGenerator generator, ConstFragment fragment) throws IOException {
+        switch (context.constWriteMode()) {
+            case COMPACT -> generator.writeRawValue(fragment.compact());
+            case PRETTY -> generator.writeRawValue(fragment.pretty(objectDepth(generator)));
+            default -> MappingInterpreter.writeValue(generator, fragment.value());
+        }
+    }
+
+    static int modeFor(JsonGenerator generator) {
+        if (!(generator instanceof JsonGeneratorImpl)
+            || generator.getCharacterEscapes() != null
+            || generator.getHighestEscapedChar() != 0
+            || !generator.isEnabled(JsonWriteFeature.QUOTE_FIELD_NAMES.mappedFeature())
+            || generator.isEnabled(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS.mappedFeature())
+            || generator.isEnabled(StreamWriteFeature.WRITE_BIGDECIMAL_AS_PLAIN)) {
+            return STRUCTURAL;
+        }
+        PrettyPrinter printer = generator.getPrettyPrinter();
+        if (printer == null) {
+            return COMPACT;
+        }
+        // PRETTY still has to pass hasDefaultLayout, which the execution context caches per printer instance.
+        return printer.getClass() == DefaultPrettyPrinter.class ? PRETTY : STRUCTURAL;
+    }
+
+    static boolean hasDefaultLayout(DefaultPrettyPrinter printer, int objectDepth) {
+        // A reconfigured DefaultPrettyPrinter exposes no getters, so compare what a fresh copy of it renders.
+        // The copy keeps the printer's current nesting, so the expected text is indented to the same depth.
+        String expected = objectDepth == 0
+            ? DEFAULT_PRETTY_PROBE
+            : DEFAULT_PRETTY_PROBE.replace(DefaultIndenter.SYS_LF, DefaultIndenter.SYS_LF + "  ".repeat(objectDepth));
+        return expected.equals(render(PROBE, printer.createInstance()));
+    }
+
+    /**
+     * The indent level the default pretty printer is at. Its array indenter is inline, so only enclosing objects
+     * indent; arrays do not.
+     */
+    static int objectDepth(JsonGenerator generator) {
+        int depth = 0;
+        for (JsonStreamContext context = generator.getOutputContext(); context != null; context = context.getParent()) {
+            if (context.inObject()) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private static String render(Object value, PrettyPrinter printer) {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = FACTORY.createGenerator(writer)) {
+            generator.setPrettyPrinter(printer);
+            MappingInterpreter.writeValue(generator, value);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to pre-serialize constant literal", ex);
+        }
+        return writer.toString();
+    }
+}
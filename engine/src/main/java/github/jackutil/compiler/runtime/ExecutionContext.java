@@ -1,58 +1,119 @@
 package github.jackutil.compiler.runtime;
 
-import java.util.HashMap;
-import java.util.List;
+import java.io.IOException;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.PrettyPrinter;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 
-import github.jackutil.compiler.CompiledMapping;
-import github.jackutil.compiler.diagnostics.MappingException;
 import github.jackutil.compiler.ir.InstructionProgram;
 import github.jackutil.compiler.ir.resolved.ResolvedConfig;
-import github.jackutil.compiler.ir.resolved.ResolvedMapping;
 
+/**
+ * Mutable per-execution state: resolver value slots and the bound generator.
+ * Instances are confined to a single thread and reused across executions; slots are sized once from the
+ * plan and invalidated by generation counters, so rebinding allocates nothing.
+ */
 final class ExecutionContext {
-    private final ResolvedConfig config;
-    private final InstructionProgram program;
-    private final FunctionExecutor functions;
+    private final ExecutionPlan plan;
     private final InputResolver inputResolver;
     private final VariableResolver variableResolver;
-    private final Map<String, Integer> mappingIndex = new HashMap<>();
 
     private JsonGenerator generator;
+    private boolean active;
+    private int constWriteMode = ConstWriter.UNRESOLVED;
+    private PrettyPrinter probedPrinter;
+    private boolean probedDefaultLayout;
+
+    ExecutionContext(ExecutionPlan plan) {
+        this.plan = plan;
+        this.inputResolver = new InputResolver(plan.config().inputs());
+        this.variableResolver = new VariableResolver(plan.config().variables(), plan.functions(), plan.deriveArguments());
+    }
 
-    ExecutionContext(CompiledMapping compiledMapping) {
-        this(compiledMapping.config(), compiledMapping.program().program());
+    void bind(JsonGenerator generator, Map<String, Object> inputs, Map<String, Object> payload) {
+        this.generator = generator;
+        this.active = true;
+        this.constWriteMode = ConstWriter.UNRESOLVED;
+        inputResolver.bindInputs(inputs);
+        variableResolver.bindPayload(payload);
     }
 
-    ExecutionContext(ResolvedConfig config, InstructionProgram program) {
-        this.config = config;
-        this.program = program;
-        this.functions = new FunctionExecutor(config.functions());
-        this.inputResolver = new InputResolver(config.inputs());
-        this.variableResolver = new VariableResolver(config.variables(), functions);
-        initMappingIndex(config.mappings());
+    /**
+     * Binds a payload read from {@code payload}; see {@link PayloadExtractor}.
+     */
+    void bind(JsonGenerator generator, Map<String, Object> inputs, JsonParser payload) throws IOException {
+        this.generator = generator;
+        this.active = true;
+        this.constWriteMode = ConstWriter.UNRESOLVED;
+        inputResolver.bindInputs(inputs);
+        variableResolver.bindPayload(payload, plan.payloadExtractor());
     }
 
-    private void initMappingIndex(List<ResolvedMapping> mappings) {
-        for (ResolvedMapping mapping : mappings) {
-            mappingIndex.put(mapping.name(), mapping.id());
+    /**
+     * Binds the next record of a batch. Inputs are shared by the whole batch, so their resolved slots stay
+     * valid; the const write mode is only re-probed when the generator changes.
+     */
+    void rebind(JsonGenerator generator, Map<String, Object> payload) {
+        if (generator != this.generator) {
+            this.generator = generator;
+            this.constWriteMode = ConstWriter.UNRESOLVED;
         }
+        variableResolver.bindPayload(payload);
     }
 
-    void bind(JsonGenerator generator, Map<String, Object> inputs, Map<String, Object> payload) {
-        this.generator = generator;
-        inputResolver.bindInputs(inputs);
-        variableResolver.bindPayload(payload);
+    void rebind(JsonGenerator generator, JsonParser payload) throws IOException {
+        if (generator != this.generator) {
+            this.generator = generator;
+            this.constWriteMode = ConstWriter.UNRESOLVED;
+        }
+        variableResolver.bindPayload(payload, plan.payloadExtractor());
+    }
+
+    void release() {
+        // A pooled frame outlives the call; keep its arrays but none of the caller's generator, inputs or payload.
+        this.generator = null;
+        this.active = false;
+        inputResolver.release();
+        variableResolver.release();
+    }
+
+    boolean active() {
+        return active;
     }
 
     JsonGenerator generator() {
         return generator;
     }
 
+    /**
+     * How {@code WRITE_CONST} should reach the bound generator; resolved on first use within an execution.
+     */
+    int constWriteMode() {
+        if (constWriteMode == ConstWriter.UNRESOLVED) {
+            int mode = ConstWriter.modeFor(generator);
+            if (mode == ConstWriter.PRETTY && !hasDefaultLayout(generator)) {
+                mode = ConstWriter.STRUCTURAL;
+            }
+            constWriteMode = mode;
+        }
+        return constWriteMode;
+    }
+
+    private boolean hasDefaultLayout(JsonGenerator generator) {
+        PrettyPrinter printer = generator.getPrettyPrinter();
+        if (printer != probedPrinter) {
+            probedDefaultLayout = ConstWriter.hasDefaultLayout((DefaultPrettyPrinter) printer,
+                ConstWriter.objectDepth(generator));
+            probedPrinter = printer;
+        }
+        return probedDefaultLayout;
+    }
+
     InstructionProgram program() {
-        return program;
+        return plan.program();
     }
 
     InputResolver inputResolver() {
@@ -64,18 +125,10 @@ final class ExecutionContext {
     }
 
     FunctionExecutor functions() {
-        return functions;
+        return plan.functions();
     }
 
     ResolvedConfig config() {
-        return config;
-    }
-
-    int mappingIndex(String name) {
-        Integer idx = mappingIndex.get(name);
-        if (idx == null) {
-            throw MappingException.of("MAPPING_UNKNOWN", "Unknown mapping: " + name, "/MAPPINGS/" + name);
-        }
-        return idx;
+        return plan.config();
     }
 }
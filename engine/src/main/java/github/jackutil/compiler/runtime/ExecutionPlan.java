@@ -0,0 +1,84 @@
+package github.jackutil.compiler.runtime;
+
+import java.time.Clock;
+
+import github.jackutil.compiler.CompiledMapping;
+import github.jackutil.compiler.diagnostics.MappingException;
+import github.jackutil.compiler.ir.InstructionProgram;
+import github.jackutil.compiler.ir.resolved.ResolvedConfig;
+import github.jackutil.compiler.ir.resolved.ResolvedMapping;
+
+/**
+ * Immutable compiled state shared by every execution of a {@link MappingEngine}.
+ * Nothing in here is written after construction, so a single plan can back any number of threads. The only
+ * exception is the builtins' formatted-time caches, which publish immutable stamps and never lock.
+ */
+final class ExecutionPlan {
+    private final ResolvedConfig config;
+    private final InstructionProgram program;
+    private final FunctionExecutor functions;
+    private final NameIndex mappingNames;
+    private final int[] mappingIds;
+    private final BytecodeProgram bytecode;
+    private final PayloadExtractor payloadExtractor;
+    private final Object[][] deriveArguments;
+
+    ExecutionPlan(CompiledMapping compiledMapping, UuidSource uuids, Clock clock) {
+        this(compiledMapping.config(), compiledMapping.program().program(), compiledMapping.bytecode(), uuids, clock);
+    }
+
+    ExecutionPlan(ResolvedConfig config, InstructionProgram program) {
+        this(config, program, null, UuidSource.configured(), Clock.systemUTC());
+    }
+
+    private ExecutionPlan(ResolvedConfig config,
+                          InstructionProgram program,
+                          BytecodeProgram bytecode,
+                          UuidSource uuids,
+                          Clock clock) {
+        this.config = config;
+        this.program = program;
+        this.bytecode = bytecode;
+        this.functions = new FunctionExecutor(config.functions(), uuids, clock);
+        this.mappingNames = NameIndex.of(config.mappings().stream().map(ResolvedMapping::name).toList());
+        this.mappingIds = config.mappings().stream().mapToInt(ResolvedMapping::id).toArray();
+        this.payloadExtractor = new PayloadExtractor(config.variables());
+        this.deriveArguments = functions.deriveArguments(config.variables());
+    }
+
+    InstructionProgram program() {
+        return program;
+    }
+
+    BytecodeProgram bytecode() {
+        return bytecode;
+    }
+
+    FunctionExecutor functions() {
+        return functions;
+    }
+
+    ResolvedConfig config() {
+        return config;
+    }
+
+    PayloadExtractor payloadExtractor() {
+        return payloadExtractor;
+    }
+
+    /**
+     * Derive arguments by variable id, with {@code lookup} maps compiled; see
+     * {@link FunctionExecutor#deriveArguments}. Shared by every execution and never written.
+     */
+    Object[][] deriveArguments() {
+        return deriveArguments;
+    }
+
+    int mappingIndex(String name) {
+        int position = mappingNames.indexOf(name);
+        if (position < 0) {
+            throw MappingException.of("MAPPING_UNKNOWN", "Unknown mapping: " + name, "/MAPPINGS/" + name);
+        }
+        return mappingIds[position];
+    }
+}
@@ -1,20 +1,61 @@
 package github.jackutil.compiler.runtime;
 
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.enums.FunctionKind;
+import github.jackutil.compiler.ir.resolved.ResolvedVariable;
 
 final class FunctionExecutor {
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final List<FunctionDef> functions;
     private final List<FunctionRuntime> runtimes;
 
     FunctionExecutor(List<FunctionDef> functions) {
+        this(functions, UuidSource.configured(), Clock.systemUTC());
+    }
+
+    FunctionExecutor(List<FunctionDef> functions, UuidSource uuids, Clock clock) {
+        this.functions = functions;
         this.runtimes = new ArrayList<>(functions.size());
         for (FunctionDef function : functions) {
-            runtimes.add(createRuntime(function));
+            runtimes.add(createRuntime(function, uuids, clock));
         }
     }
 
+    /**
+     * The derive argument vector of every variable, by variable id, as the runtimes take them: the call's arguments
+     * followed by the function's defaults, merged once here so derive calls never build an argument list. The map
+     * argument of a {@code lookup} call is compiled into a {@link LookupTable}; call sites of one function share its
+     * map instance and so also share the table.
+     */
+    Object[][] deriveArguments(List<ResolvedVariable> variables) {
+        Map<Map<?, ?>, LookupTable> tables = new IdentityHashMap<>();
+        Object[][] arguments = new Object[variables.size()][];
+        for (int i = 0; i < arguments.length; i++) {
+            ResolvedVariable variable = variables.get(i);
+            Integer functionId = variable.deriveFunctionId();
+            if (functionId == null || functionId < 0 || functionId >= functions.size()) {
+                arguments[i] = NO_ARGS;
+                continue;
+            }
+            Object[] args = functions.get(functionId).argumentVector(variable.deriveArgs());
+            if (isLookup(functionId) && args.length >= 2 && args[1] instanceof Map<?, ?> entries) {
+                LookupTable table = tables.computeIfAbsent(entries, LookupTable::of);
+                if (table != null) {
+                    args[1] = table;
+                }
+            }
+            arguments[i] = args;
+        }
+        return arguments;
+    }
+
     void validate(int functionId, Object value) {
         if (functionId < 0 || functionId >= runtimes.size()) {
             throw new IllegalArgumentException("Unknown function id: " + functionId);
@@ -22,7 +63,7 @@ final class FunctionExecutor {
         runtimes.get(functionId).validate(value);
     }
 
-    Object derive(Integer functionId, List<Object> args) {
+    Object derive(Integer functionId, Object[] args) {
         if (functionId == null) {
             return null;
         }
@@ -32,10 +73,18 @@ final class FunctionExecutor {
         return runtimes.get(functionId).derive(args);
     }
 
-    private FunctionRuntime createRuntime(FunctionDef function) {
+    private boolean isLookup(Integer functionId) {
+        if (functionId == null || functionId < 0 || functionId >= functions.size()) {
+            return false;
+        }
+        FunctionDef function = functions.get(functionId);
+        return function.kind() == FunctionKind.BUILTIN && "lookup".equals(String.valueOf(function.payload()));
+    }
+
+    private FunctionRuntime createRuntime(FunctionDef function, UuidSource uuids, Clock clock) {
         return switch (function.kind()) {
             case REGEX -> new RegexFunctionRuntime(function);
-            case BUILTIN -> new BuiltinFunctionRuntime(function);
+            case BUILTIN -> new BuiltinFunctionRuntime(function, uuids, clock);
         };
     }
 }
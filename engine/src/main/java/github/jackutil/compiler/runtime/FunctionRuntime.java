@@ -1,8 +1,8 @@
 package github.jackutil.compiler.runtime;
 
-import java.util.List;
-
 interface FunctionRuntime {
     void validate(Object value);
-    Object derive(List<Object> args);
+
+    /** Derives a value from a call site's compiled argument vector, which the runtime must not modify. */
+    Object derive(Object[] args);
 }
@@ -12,32 +12,48 @@ import github.jackutil.compiler.ir.resolved.ResolvedInput;
 final class InputResolver {
     private final List<ResolvedInput> inputs;
     private final Object[] values;
-    private final boolean[] resolved;
+    private final int[] generations;
+    private int generation;
     private Map<String, Object> provided;
 
     InputResolver(List<ResolvedInput> inputs) {
         this.inputs = inputs;
         this.values = new Object[inputs.size()];
-        this.resolved = new boolean[inputs.size()];
+        this.generations = new int[inputs.size()];
+        this.generation = 1;
     }
 
     void bindInputs(Map<String, Object> inputValues) {
         this.provided = inputValues;
+        nextGeneration();
+    }
+
+    /** Drops the provided inputs and every resolved value, keeping only the slot arrays. */
+    void release() {
+        this.provided = null;
         Arrays.fill(values, null);
-        Arrays.fill(resolved, false);
+        nextGeneration();
     }
 
     Object valueOf(int inputId) {
         if (inputId < 0 || inputId >= inputs.size()) {
             throw MappingException.of("INPUT_UNKNOWN_ID", "Unknown input id: " + inputId, "/INPUT");
         }
-        if (!resolved[inputId]) {
+        if (generations[inputId] != generation) {
             values[inputId] = resolve(inputs.get(inputId));
-            resolved[inputId] = true;
+            generations[inputId] = generation;
         }
         return values[inputId];
     }
 
+    private void nextGeneration() {
+        // Bumping the generation invalidates every slot at once; values are overwritten lazily on next use.
+        if (++generation == 0) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
     private Object resolve(ResolvedInput input) {
         Object value = provided != null ? provided.get(input.name()) : null;
         if (value == null) {
@@ -57,7 +73,7 @@ final class InputResolver {
             return switch (type) {
                 case STRING -> value instanceof String ? value : String.valueOf(value);
                 case NUMBER -> toBigDecimal(value);
-                case INTEGER -> toBigDecimal(value).longValueExact();
+                case INTEGER -> toLong(value);
                 case BOOLEAN -> toBoolean(value);
                 case ARRAY -> ensureType(value, List.class, "array", input);
                 case OBJECT -> ensureType(value, Map.class, "object", input);
@@ -74,6 +90,16 @@ final class InputResolver {
         return value;
     }
 
+    private Long toLong(Object value) {
+        if (value instanceof Long l) {
+            return l;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return toBigDecimal(value).longValueExact();
+    }
+
     private BigDecimal toBigDecimal(Object value) {
         if (value instanceof BigDecimal bd) {
             return bd;
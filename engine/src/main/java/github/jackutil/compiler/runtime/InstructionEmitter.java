@@ -1,12 +1,19 @@
 package github.jackutil.compiler.runtime;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import github.jackutil.compiler.ir.ConstFragment;
+import github.jackutil.compiler.ir.ConstFragments;
+import github.jackutil.compiler.ir.EncodedFieldNames;
 import github.jackutil.compiler.ir.InstructionBlock;
 import github.jackutil.compiler.ir.InstructionProgram;
+import github.jackutil.compiler.ir.ScalarPools;
+import github.jackutil.compiler.ir.StringTable;
 import github.jackutil.compiler.ir.enums.OpCode;
 import github.jackutil.compiler.ir.resolved.ResolvedConfig;
 import github.jackutil.compiler.ir.resolved.ResolvedMapNode;
@@ -15,101 +22,128 @@ import github.jackutil.compiler.ir.resolved.ResolvedMapping;
 public final class InstructionEmitter {
 
     public InstructionProgram emit(ResolvedConfig config) {
-        List<String> fieldNames = new ArrayList<>();
-        List<Object> literals = new ArrayList<>();
-        Map<String, Integer> fieldNameIndex = new HashMap<>();
-        Map<Object, Integer> literalIndex = new HashMap<>();
+        Pools pools = new Pools();
 
         List<InstructionBlock> blocks = new ArrayList<>(config.mappings().size());
         for (int i = 0; i < config.mappings().size(); i++) {
             blocks.add(null);
         }
         for (ResolvedMapping mapping : config.mappings()) {
-            blocks.set(mapping.id(), emitMapping(mapping, fieldNames, literals, fieldNameIndex, literalIndex));
+            blocks.set(mapping.id(), emitMapping(mapping, pools));
         }
-        return new InstructionProgram(blocks, fieldNames, literals);
+        return new InstructionProgram(
+            blocks,
+            pools.fieldNames.values(),
+            pools.literals,
+            EncodedFieldNames.of(pools.fieldNames.values()),
+            constFragments(pools.literals),
+            pools.scalars()
+        );
     }
 
-    private InstructionBlock emitMapping(ResolvedMapping mapping,
-                                         List<String> fieldNames,
-                                         List<Object> literals,
-                                         Map<String, Integer> fieldNameIndex,
-                                         Map<Object, Integer> literalIndex) {
-        List<OpCode> opcodes = new ArrayList<>();
-        List<int[]> operands = new ArrayList<>();
-
-        emitNode(mapping.root(), opcodes, operands, fieldNames, literals, fieldNameIndex, literalIndex);
+    private ConstFragments constFragments(List<Object> literals) {
+        List<ConstFragment> fragments = new ArrayList<>(literals.size());
+        for (Object value : literals) {
+            fragments.add(ConstWriter.isConstant(value) ? ConstWriter.fragment(value) : null);
+        }
+        return ConstFragments.of(fragments);
+    }
 
-        return new InstructionBlock(opcodes.toArray(OpCode[]::new), operands.toArray(int[][]::new));
+    private InstructionBlock emitMapping(ResolvedMapping mapping, Pools pools) {
+        CodeBuffer code = new CodeBuffer();
+        emitNode(mapping.root(), code, pools);
+        return new InstructionBlock(code.toArray());
     }
 
-    private void emitNode(ResolvedMapNode node,
-                          List<OpCode> opcodes,
-                          List<int[]> operands,
-                          List<String> fieldNames,
-                          List<Object> literals,
-                          Map<String, Integer> fieldNameIndex,
-                          Map<Object, Integer> literalIndex) {
+    private void emitNode(ResolvedMapNode node, CodeBuffer code, Pools pools) {
         if (node instanceof ResolvedMapNode.LiteralNode literalNode) {
-            int index = internLiteral(literals, literalIndex, literalNode.value());
-            opcodes.add(OpCode.WRITE_LITERAL);
-            operands.add(new int[]{index});
+            emitLiteral(literalNode.value(), code, pools);
             return;
         }
         if (node instanceof ResolvedMapNode.VariableRefNode variableRefNode) {
-            opcodes.add(OpCode.WRITE_VARIABLE);
-            operands.add(new int[]{variableRefNode.variableId()});
+            code.emit(OpCode.WRITE_VARIABLE, variableRefNode.variableId());
             return;
         }
         if (node instanceof ResolvedMapNode.InputRefNode inputRefNode) {
-            opcodes.add(OpCode.WRITE_INPUT);
-            operands.add(new int[]{inputRefNode.inputId()});
+            code.emit(OpCode.WRITE_INPUT, inputRefNode.inputId());
             return;
         }
         if (node instanceof ResolvedMapNode.MappingRefNode mappingRefNode) {
-            opcodes.add(OpCode.WRITE_MAPPING);
-            operands.add(new int[]{mappingRefNode.mappingId()});
+            code.emit(OpCode.WRITE_MAPPING, mappingRefNode.mappingId());
             return;
         }
         if (node instanceof ResolvedMapNode.ObjectNode objectNode) {
-            opcodes.add(OpCode.BEGIN_OBJECT);
-            operands.add(new int[0]);
+            code.emit(OpCode.BEGIN_OBJECT, 0);
             for (ResolvedMapNode.ObjectNode.Field field : objectNode.fields()) {
-                int fieldNameId = internField(fieldNames, fieldNameIndex, field.name());
-                opcodes.add(OpCode.WRITE_FIELD);
-                operands.add(new int[]{fieldNameId});
-                emitNode(field.value(), opcodes, operands, fieldNames, literals, fieldNameIndex, literalIndex);
+                code.emit(OpCode.WRITE_FIELD, pools.fieldNames.intern(field.name()));
+                emitNode(field.value(), code, pools);
             }
-            opcodes.add(OpCode.END_OBJECT);
-            operands.add(new int[0]);
+            code.emit(OpCode.END_OBJECT, 0);
             return;
         }
         if (node instanceof ResolvedMapNode.ArrayNode arrayNode) {
-            opcodes.add(OpCode.BEGIN_ARRAY);
-            operands.add(new int[0]);
+            code.emit(OpCode.BEGIN_ARRAY, 0);
             for (ResolvedMapNode element : arrayNode.elements()) {
-                emitNode(element, opcodes, operands, fieldNames, literals, fieldNameIndex, literalIndex);
+                emitNode(element, code, pools);
             }
-            opcodes.add(OpCode.END_ARRAY);
-            operands.add(new int[0]);
+            code.emit(OpCode.END_ARRAY, 0);
         }
     }
 
-    private int internField(List<String> pool, Map<String, Integer> index, String value) {
-        return index.computeIfAbsent(value, key -> {
-            pool.add(key);
-            return pool.size() - 1;
-        });
+    private void emitLiteral(Object value, CodeBuffer code, Pools pools) {
+        // The literal's type picks the opcode here, so the interpreter never type-tests common scalars.
+        if (value == null) {
+            code.emit(OpCode.WRITE_NULL, 0);
+        } else if (value instanceof String s) {
+            code.emit(OpCode.WRITE_STRING, pools.strings.intern(s));
+        } else if (value instanceof Integer || value instanceof Long) {
+            code.emit(OpCode.WRITE_LONG, intern(pools.longs, pools.longIndex, ((Number) value).longValue()));
+        } else if (value instanceof BigDecimal decimal) {
+            code.emit(OpCode.WRITE_DECIMAL, intern(pools.decimals, pools.decimalIndex, decimal));
+        } else if (value instanceof Boolean b) {
+            code.emit(OpCode.WRITE_BOOL, b ? 1 : 0);
+        } else {
+            // Folded objects and arrays are serialized once and copied out as raw text at runtime.
+            OpCode opcode = ConstWriter.isConstant(value) ? OpCode.WRITE_CONST : OpCode.WRITE_LITERAL;
+            code.emit(opcode, intern(pools.literals, pools.literalIndex, value));
+        }
     }
 
-    private int internLiteral(List<Object> pool, Map<Object, Integer> index, Object value) {
+    private static <T> int intern(List<T> pool, Map<T, Integer> index, T value) {
         return index.computeIfAbsent(value, key -> {
             pool.add(key);
             return pool.size() - 1;
         });
     }
-}
 
+    private static final class CodeBuffer {
+        private int[] words = new int[16];
+        private int size;
 
+        void emit(OpCode opcode, int operand) {
+            if (size == words.length) {
+                words = Arrays.copyOf(words, size * 2);
+            }
+            words[size++] = InstructionBlock.encode(opcode, operand);
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(words, size);
+        }
+    }
 
+    private static final class Pools {
+        private final StringTable fieldNames = new StringTable();
+        private final StringTable strings = new StringTable();
+        private final List<Long> longs = new ArrayList<>();
+        private final Map<Long, Integer> longIndex = new HashMap<>();
+        private final List<BigDecimal> decimals = new ArrayList<>();
+        private final Map<BigDecimal, Integer> decimalIndex = new HashMap<>();
+        private final List<Object> literals = new ArrayList<>();
+        private final Map<Object, Integer> literalIndex = new HashMap<>();
 
+        ScalarPools scalars() {
+            return ScalarPools.of(strings.values(), longs, decimals);
+        }
+    }
+}
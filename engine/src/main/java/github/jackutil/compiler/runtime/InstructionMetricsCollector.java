@@ -57,14 +57,12 @@ public final class InstructionMetricsCollector {
         }
         int totalOpcodes = 0;
         Set<Integer> inlineMappings = new HashSet<>();
-        OpCode[] opcodes = block.opcodes();
-        int[][] operands = block.operands();
-        for (int i = 0; i < opcodes.length; i++) {
-            OpCode opcode = opcodes[i];
+        for (int word : block.code()) {
+            OpCode opcode = InstructionBlock.opcode(word);
             counts.put(opcode, counts.get(opcode) + 1);
             totalOpcodes++;
             if (opcode == OpCode.WRITE_MAPPING) {
-                inlineMappings.add(operands[i][0]);
+                inlineMappings.add(InstructionBlock.operand(word));
             }
         }
         return new InstructionMetrics(
@@ -72,7 +70,7 @@ public final class InstructionMetricsCollector {
             mapping.name(),
             totalOpcodes,
             Collections.unmodifiableMap(new EnumMap<>(counts)),
-            instructions.literals().size(),
+            instructions.literals().size() + instructions.scalars().size(),
             instructions.fieldNames().size(),
             Collections.unmodifiableSet(inlineMappings)
         );
@@ -37,6 +37,7 @@ public final class InstructionMetricsRecorder {
                 event.fieldPoolSize = metric.fieldPoolSize();
                 event.inlineMappingCount = metric.inlineMappingIds().size();
                 event.writeLiteralCount = metric.opcodeCount(OpCode.WRITE_LITERAL);
+                event.writeConstCount = metric.opcodeCount(OpCode.WRITE_CONST);
                 event.writeMappingCount = metric.opcodeCount(OpCode.WRITE_MAPPING);
                 event.writeVariableCount = metric.opcodeCount(OpCode.WRITE_VARIABLE);
                 event.writeInputCount = metric.opcodeCount(OpCode.WRITE_INPUT);
@@ -66,6 +67,9 @@ public final class InstructionMetricsRecorder {
         @Label("WRITE_LITERAL Count")
         int writeLiteralCount;
 
+        @Label("WRITE_CONST Count")
+        int writeConstCount;
+
         @Label("WRITE_VARIABLE Count")
         int writeVariableCount;
 
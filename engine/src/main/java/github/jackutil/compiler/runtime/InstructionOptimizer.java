@@ -122,7 +122,7 @@ public final class InstructionOptimizer {
                 return variable;
             }
             try {
-                Object folded = new BuiltinFunctionRuntime(function).derive(callArgs);
+                Object folded = new BuiltinFunctionRuntime(function).derive(function.argumentVector(callArgs));
                 return new ResolvedVariable(
                     variable.id(),
                     variable.name(),
@@ -0,0 +1,85 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.Map;
+
+/**
+ * Immutable open-addressed hash table compiled from a constant {@code lookup} map. The plan builds one per distinct
+ * map in the runtime argument vectors of its call sites; the resolved config keeps the parsed map. Tables are sized
+ * to at most half full and probe linearly. Each slot holds the key and its precomputed {@link String#hashCode()},
+ * so a probe only calls {@code equals} when the hashes match. Entries whose value is {@code null} are left out,
+ * since {@code lookup} treats them as misses anyway. Only {@code String} lookup keys can hit, exactly as with the
+ * map they replace.
+ */
+final class LookupTable {
+    private final String[] keys;
+    private final int[] hashes;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    private LookupTable(Map<?, ?> entries, int capacity) {
+        this.keys = new String[capacity];
+        this.hashes = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        int count = 0;
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            String key = (String) entry.getKey();
+            int hash = key.hashCode();
+            int slot = spread(hash) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            hashes[slot] = hash;
+            values[slot] = entry.getValue();
+            count++;
+        }
+        this.size = count;
+    }
+
+    /**
+     * Compiles {@code entries}, or returns {@code null} when a key is not a {@code String} and the map has to be
+     * probed as it is.
+     */
+    static LookupTable of(Map<?, ?> entries) {
+        int size = 0;
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            if (!(entry.getKey() instanceof String)) {
+                return null;
+            }
+            if (entry.getValue() != null) {
+                size++;
+            }
+        }
+        return new LookupTable(entries, Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1);
+    }
+
+    /** The value stored under {@code key}, or {@code null} when there is none. */
+    Object get(Object key) {
+        if (!(key instanceof String name)) {
+            return null;
+        }
+        int hash = name.hashCode();
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String candidate = keys[slot];
+            if (candidate == null) {
+                return null;
+            }
+            if (hashes[slot] == hash && (candidate == name || candidate.equals(name))) {
+                return values[slot];
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,30 +1,253 @@
 package github.jackutil.compiler.runtime;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Clock;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 
 import github.jackutil.compiler.CompiledMapping;
 
+/**
+ * Executes compiled mappings. A single engine is safe to share between threads: compiled state is held in an
+ * immutable {@link ExecutionPlan} and every thread resolves inputs and variables in its own {@link ExecutionContext}.
+ */
 public final class MappingEngine {
-    private final ExecutionContext context;
+    private final ExecutionPlan plan;
     private final MappingInterpreter interpreter = new MappingInterpreter();
+    private final ThreadLocal<ExecutionContext> contexts;
 
     public MappingEngine(CompiledMapping compiledMapping) {
-        this.context = new ExecutionContext(compiledMapping);
+        this(compiledMapping, UuidSource.configured());
+    }
+
+    /**
+     * Creates an engine whose {@code uuid} builtins draw from {@code uuids} instead of the configured default.
+     */
+    public MappingEngine(CompiledMapping compiledMapping, UuidSource uuids) {
+        this(compiledMapping, uuids, Clock.systemUTC());
+    }
+
+    /**
+     * Creates an engine whose {@code uuid} builtins draw from {@code uuids} and whose {@code date} builtins read
+     * {@code clock}, for example a fixed clock in tests.
+     */
+    public MappingEngine(CompiledMapping compiledMapping, UuidSource uuids, Clock clock) {
+        this.plan = new ExecutionPlan(compiledMapping, uuids, clock);
+        this.contexts = ThreadLocal.withInitial(() -> new ExecutionContext(plan));
     }
 
     public void execute(String mappingName,
                         Map<String, Object> inputs,
                         Map<String, Object> payload,
                         JsonGenerator generator) throws IOException {
-        context.bind(generator, inputs, payload);
-        int index = context.mappingIndex(mappingName);
-        interpreter.execute(context, index);
+        int index = plan.mappingIndex(mappingName);
+        ExecutionContext context = acquire();
+        try {
+            context.bind(generator, inputs, payload);
+            run(context, index);
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Executes as {@link #execute(String, Map, Map, JsonGenerator)} and keeps this execution's variables for later.
+     * Variables the mapping did not reference are only resolved, and their derives or constraints only run, when
+     * the supplier is invoked. The execution's slots are copied when it ends, since the thread's frame is cleared
+     * for its next call. The supplier may be invoked from any thread.
+     */
+    public Supplier<Map<String, Object>> executeRetainingVariables(String mappingName,
+                                                                   Map<String, Object> inputs,
+                                                                   Map<String, Object> payload,
+                                                                   JsonGenerator generator) throws IOException {
+        int index = plan.mappingIndex(mappingName);
+        ExecutionContext context = acquire();
+        try {
+            context.bind(generator, inputs, payload);
+            run(context, index);
+            return context.variableResolver().deferSnapshot();
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Executes against a payload read straight from {@code payload}, positioned before or on the payload object.
+     * Only the top-level fields that name a variable are read; other subtrees are skipped unparsed, so no payload
+     * map is built. The parser is left on the closing brace and is not closed.
+     */
+    public void execute(String mappingName,
+                        Map<String, Object> inputs,
+                        JsonParser payload,
+                        JsonGenerator generator) throws IOException {
+        int index = plan.mappingIndex(mappingName);
+        ExecutionContext context = acquire();
+        try {
+            context.bind(generator, inputs, payload);
+            run(context, index);
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Executes against a UTF-8 JSON payload document; see {@link #execute(String, Map, JsonParser, JsonGenerator)}.
+     * An empty document binds an empty payload.
+     */
+    public void execute(String mappingName,
+                        Map<String, Object> inputs,
+                        byte[] payload,
+                        JsonGenerator generator) throws IOException {
+        try (JsonParser parser = OutputFormat.JSON.factory().createParser(payload)) {
+            execute(mappingName, inputs, parser, generator);
+        }
+    }
+
+    /**
+     * Writes the output of one execution to {@code target} in {@code format}. The stream is flushed but not closed.
+     */
+    public void execute(String mappingName,
+                        Map<String, Object> inputs,
+                        Map<String, Object> payload,
+                        OutputStream target,
+                        OutputFormat format) throws IOException {
+        try (JsonGenerator generator = format.factory().createGenerator(target)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            execute(mappingName, inputs, payload, generator);
+        }
+    }
+
+    public BatchResult executeBatch(String mappingName,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink) throws IOException {
+        return executeBatch(mappingName, Map.of(), payloads, sink, BatchFormat.JSON_ARRAY);
+    }
+
+    /**
+     * Maps every payload against the same mapping and inputs, writing the records to {@code sink} framed as
+     * {@code format}. The mapping lookup, the execution frame, the generator and the resolved inputs are set up
+     * once for the whole batch. A record that fails with a {@code MappingException} is skipped and reported in
+     * the result; the remaining records are still written. The sink is flushed but not closed.
+     */
+    public BatchResult executeBatch(String mappingName,
+                                    Map<String, Object> inputs,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink,
+                                    BatchFormat format) throws IOException {
+        return executeBatch(mappingName, inputs, payloads, sink, format, OutputFormat.JSON);
+    }
+
+    /**
+     * Batch execution writing records in {@code output}; binary formats take {@link BatchFormat#SEQUENCE} framing.
+     */
+    public BatchResult executeBatch(String mappingName,
+                                    Map<String, Object> inputs,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink,
+                                    BatchFormat format,
+                                    OutputFormat output) throws IOException {
+        return executeBatch(mappingName, inputs, payloads, sink, format, output, RecordHook.DIRECT);
+    }
+
+    /**
+     * Batch execution with every record written through {@code hook}, which may render the record somewhere else
+     * first, for example to check it; a {@code MappingException} thrown by the hook fails that record only. The
+     * mapping is still resolved once, before the first record.
+     */
+    public BatchResult executeBatch(String mappingName,
+                                    Map<String, Object> inputs,
+                                    Iterable<? extends Map<String, Object>> payloads,
+                                    OutputStream sink,
+                                    BatchFormat format,
+                                    OutputFormat output,
+                                    RecordHook hook) throws IOException {
+        int index = plan.mappingIndex(mappingName);
+        BatchWriter batch = new BatchWriter(output.factory(), sink, format);
+        ExecutionContext context = acquire();
+        try {
+            context.bind(null, inputs, Map.of());
+            for (Map<String, Object> payload : payloads) {
+                Map<String, Object> bound = payload != null ? payload : Map.of();
+                batch.write(generator -> hook.write(generator, target -> {
+                    context.rebind(target, bound);
+                    run(context, index);
+                }));
+            }
+        } finally {
+            context.release();
+        }
+        return batch.finish();
+    }
+
+    /**
+     * Batch execution over the records of {@code records}: successive root-level objects, or the elements of the
+     * array the parser is positioned on. Reading stops at the end of input or at that array's closing bracket.
+     * Each record is bound as in {@link #execute(String, Map, JsonParser, JsonGenerator)}, so only the fields
+     * that name a variable are read. Malformed input aborts the batch with the parser's exception.
+     */
+    public BatchResult executeBatch(String mappingName,
+                                    Map<String, Object> inputs,
+                                    JsonParser records,
+                                    OutputStream sink,
+                                    BatchFormat format,
+                                    OutputFormat output) throws IOException {
+        int index = plan.mappingIndex(mappingName);
+        BatchWriter batch = new BatchWriter(output.factory(), sink, format);
+        ExecutionContext context = acquire();
+        try {
+            context.bind(null, inputs, Map.of());
+            for (JsonToken token = records.nextToken(); token != null && token != JsonToken.END_ARRAY;
+                 token = records.nextToken()) {
+                batch.write(generator -> {
+                    context.rebind(generator, records);
+                    run(context, index);
+                });
+            }
+        } finally {
+            context.release();
+        }
+        return batch.finish();
+    }
+
+    private void run(ExecutionContext context, int index) throws IOException {
+        BytecodeProgram bytecode = plan.bytecode();
+        if (bytecode != null) {
+            bytecode.block(index).execute(context, context.generator());
+        } else {
+            interpreter.execute(context, index);
+        }
+    }
+
+    private ExecutionContext acquire() {
+        ExecutionContext context = contexts.get();
+        // A generator callback re-entering the engine on this thread must not clobber the outer frame.
+        return context.active() ? new ExecutionContext(plan) : context;
+    }
+
+    /**
+     * Writes one batch record. {@code record} maps the record onto whichever generator it is given; the hook
+     * decides where that is and what reaches the batch {@code generator}.
+     */
+    @FunctionalInterface
+    public interface RecordHook {
+        RecordHook DIRECT = (generator, record) -> record.writeTo(generator);
+
+        void write(JsonGenerator generator, BatchWriter.RecordWriter record) throws IOException;
     }
 
+    /**
+     * Returns the variables of the execution in progress on the calling thread, for callbacks that run during
+     * {@link #execute}. Bindings are cleared when an execution ends; use
+     * {@link #executeRetainingVariables} to read them afterwards.
+     *
+     * @throws IllegalStateException if no execution is in progress on the calling thread
+     */
     public Map<String, Object> variablesSnapshot() {
-        return context.variableResolver().snapshotValues();
+        return contexts.get().variableResolver().snapshotValues();
     }
 }
@@ -8,8 +8,11 @@ import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 
+import github.jackutil.compiler.ir.ConstFragments;
+import github.jackutil.compiler.ir.EncodedFieldNames;
 import github.jackutil.compiler.ir.InstructionBlock;
 import github.jackutil.compiler.ir.InstructionProgram;
+import github.jackutil.compiler.ir.ScalarPools;
 import github.jackutil.compiler.ir.enums.OpCode;
 
 final class MappingInterpreter {
@@ -17,26 +20,31 @@ final class MappingInterpreter {
     void execute(ExecutionContext context, int blockIndex) throws IOException {
         InstructionProgram program = context.program();
         InstructionBlock block = program.blocks().get(blockIndex);
-        OpCode[] opcodes = block.opcodes();
-        int[][] operands = block.operands();
+        int[] code = block.code();
+        EncodedFieldNames fieldNames = program.encodedFieldNames();
+        ConstFragments constFragments = program.constFragments();
+        ScalarPools scalars = program.scalars();
         JsonGenerator generator = context.generator();
-        for (int i = 0; i < opcodes.length; i++) {
-            OpCode opcode = opcodes[i];
-            int[] operand = operands[i];
+        for (int word : code) {
+            OpCode opcode = InstructionBlock.opcode(word);
+            int operand = InstructionBlock.operand(word);
             switch (opcode) {
                 case BEGIN_OBJECT -> generator.writeStartObject();
                 case END_OBJECT -> generator.writeEndObject();
                 case BEGIN_ARRAY -> generator.writeStartArray();
                 case END_ARRAY -> generator.writeEndArray();
-                case WRITE_FIELD -> {
-                    String fieldName = program.fieldNames().get(operand[0]);
-                    generator.writeFieldName(fieldName);
-                }
-                case WRITE_LITERAL -> writeValue(generator, program.literals().get(operand[0]));
-                case WRITE_VARIABLE -> writeValue(generator, context.variableResolver().valueOf(operand[0]));
-                case WRITE_INPUT -> writeValue(generator, context.inputResolver().valueOf(operand[0]));
-                case WRITE_MAPPING -> execute(context, operand[0]);
-                case WRITE_CONST, NO_OP -> {
+                case WRITE_FIELD -> generator.writeFieldName(fieldNames.get(operand));
+                case WRITE_LITERAL -> writeValue(generator, program.literals().get(operand));
+                case WRITE_STRING -> generator.writeString(scalars.string(operand));
+                case WRITE_LONG -> generator.writeNumber(scalars.longValue(operand));
+                case WRITE_DECIMAL -> generator.writeNumber(scalars.decimal(operand));
+                case WRITE_BOOL -> generator.writeBoolean(operand != 0);
+                case WRITE_NULL -> generator.writeNull();
+                case WRITE_VARIABLE -> writeValue(generator, context.variableResolver().valueOf(operand));
+                case WRITE_INPUT -> writeValue(generator, context.inputResolver().valueOf(operand));
+                case WRITE_MAPPING -> execute(context, operand);
+                case WRITE_CONST -> ConstWriter.write(context, generator, constFragments.get(operand));
+                case NO_OP -> {
                     // reserved for future use
                 }
                 default -> throw new IllegalArgumentException("Unexpected value: " + opcode);
@@ -44,7 +52,7 @@ final class MappingInterpreter {
         }
     }
 
-    private void writeValue(JsonGenerator generator, Object value) throws IOException {
+    static void writeValue(JsonGenerator generator, Object value) throws IOException {
         if (value == null) {
             generator.writeNull();
             return;
@@ -0,0 +1,173 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal perfect hash from a fixed set of declared names to their indices, built once per plan. Keys are placed
+ * with hash-and-displace: each name hashes to a bucket, and every bucket carries the displacement that scatters
+ * its names onto free slots of a table exactly as large as the name set. A lookup is one hash, two array reads and
+ * one comparison against the stored name, and a miss costs the same.
+ *
+ * <p>The hash is {@link String#hashCode()}, so names handed out by a Jackson parser, whose symbol table returns
+ * one canonical {@code String} per field name, are looked up without rehashing. Immutable and safe to share
+ * between threads.
+ */
+final class NameIndex {
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+    private static final NameIndex EMPTY = new NameIndex(new int[1], new String[0], new int[0], new String[0], new int[0]);
+
+    private final int[] displacements;
+    private final String[] names;
+    private final int[] indices;
+    // Names whose String hash equals that of an earlier name cannot be separated by displacement; they are
+    // compared one by one after a miss. Declared names virtually never collide, so this is almost always empty.
+    private final String[] overflowNames;
+    private final int[] overflowIndices;
+
+    private NameIndex(int[] displacements, String[] names, int[] indices, String[] overflowNames, int[] overflowIndices) {
+        this.displacements = displacements;
+        this.names = names;
+        this.indices = indices;
+        this.overflowNames = overflowNames;
+        this.overflowIndices = overflowIndices;
+    }
+
+    /**
+     * Indexes {@code names} by position; a name listed twice keeps its first position.
+     */
+    static NameIndex of(List<String> names) {
+        List<String> keys = new ArrayList<>(names.size());
+        List<Integer> positions = new ArrayList<>(names.size());
+        List<String> overflowNames = new ArrayList<>();
+        List<Integer> overflowPositions = new ArrayList<>();
+        Map<Integer, String> byHash = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            String previous = byHash.putIfAbsent(name.hashCode(), name);
+            if (previous == null) {
+                keys.add(name);
+                positions.add(i);
+            } else if (!previous.equals(name) && !overflowNames.contains(name)) {
+                overflowNames.add(name);
+                overflowPositions.add(i);
+            }
+        }
+        if (keys.isEmpty()) {
+            return EMPTY;
+        }
+        return build(keys, positions,
+            overflowNames.toArray(String[]::new), overflowPositions.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    int size() {
+        return names.length + overflowNames.length;
+    }
+
+    int indexOf(String name) {
+        int hash = name.hashCode();
+        int slot = slot(hash);
+        if (slot >= 0 && name.equals(names[slot])) {
+            return indices[slot];
+        }
+        return overflowNames.length == 0 ? -1 : overflow(name);
+    }
+
+    private int slot(int hash) {
+        if (names.length == 0) {
+            return -1;
+        }
+        return position(hash, displacements[bucket(hash, displacements.length)], names.length);
+    }
+
+    private int overflow(String name) {
+        for (int i = 0; i < overflowNames.length; i++) {
+            if (overflowNames[i].equals(name)) {
+                return overflowIndices[i];
+            }
+        }
+        return -1;
+    }
+
+    private static NameIndex build(List<String> keys, List<Integer> positions, String[] overflowNames, int[] overflowIndices) {
+        int size = keys.size();
+        int bucketCount = Math.max(1, size / 2);
+        List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>(2));
+        }
+        for (int i = 0; i < size; i++) {
+            buckets.get(bucket(keys.get(i).hashCode(), bucketCount)).add(i);
+        }
+        Integer[] order = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            order[i] = i;
+        }
+        // Largest buckets first, while the table is still empty enough to place them.
+        Arrays.sort(order, Comparator.comparingInt((Integer bucket) -> buckets.get(bucket).size()).reversed());
+
+        int[] displacements = new int[bucketCount];
+        String[] names = new String[size];
+        int[] indices = new int[size];
+        boolean[] taken = new boolean[size];
+        int[] placed = new int[size];
+        for (int bucket : order) {
+            List<Integer> members = buckets.get(bucket);
+            if (members.isEmpty()) {
+                continue;
+            }
+            int displacement = 0;
+            while (!fits(members, keys, displacement, taken, placed)) {
+                if (++displacement == MAX_DISPLACEMENT) {
+                    throw new IllegalStateException("Cannot build a perfect hash for " + size + " names");
+                }
+            }
+            displacements[bucket] = displacement;
+            for (int member : members) {
+                int slot = position(keys.get(member).hashCode(), displacement, size);
+                taken[slot] = true;
+                names[slot] = keys.get(member);
+                indices[slot] = positions.get(member);
+            }
+        }
+        return new NameIndex(displacements, names, indices, overflowNames, overflowIndices);
+    }
+
+    private static boolean fits(List<Integer> members, List<String> keys, int displacement, boolean[] taken, int[] placed) {
+        int count = 0;
+        for (int member : members) {
+            int slot = position(keys.get(member).hashCode(), displacement, taken.length);
+            if (taken[slot]) {
+                return false;
+            }
+            for (int i = 0; i < count; i++) {
+                if (placed[i] == slot) {
+                    return false;
+                }
+            }
+            placed[count++] = slot;
+        }
+        return true;
+    }
+
+    private static int bucket(int hash, int bucketCount) {
+        return Integer.remainderUnsigned(mix(hash), bucketCount);
+    }
+
+    private static int position(int hash, int displacement, int size) {
+        return Integer.remainderUnsigned(mix(hash ^ (displacement * 0x9E3779B9)) + displacement, size);
+    }
+
+    private static int mix(int hash) {
+        // murmur3 finalizer; String hashes of similar names differ only in their low bits.
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+}
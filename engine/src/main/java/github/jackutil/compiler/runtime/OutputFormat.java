@@ -0,0 +1,42 @@
+package github.jackutil.compiler.runtime;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Wire format of mapping output. Every format is backed by one shared Jackson factory, so generators reuse its
+ * buffer recyclers, and the pre-encoded field names of a program are written through
+ * {@code writeFieldName(SerializableString)} in every format. Binary generators receive folded constants
+ * structurally rather than as raw JSON text.
+ */
+public enum OutputFormat {
+    JSON(new JsonFactory()),
+    /**
+     * Smile with back-references for repeated field names and short string values, so records written by one
+     * generator share a symbol table.
+     */
+    SMILE(SmileFactory.builder()
+        .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+        .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+        .build()),
+    CBOR(new CBORFactory());
+
+    private final JsonFactory factory;
+
+    OutputFormat(JsonFactory factory) {
+        this.factory = factory;
+    }
+
+    public JsonFactory factory() {
+        return factory;
+    }
+
+    /**
+     * Whether output is JSON text, which is what the array and newline batch framings require.
+     */
+    public boolean textual() {
+        return this == JSON;
+    }
+}
@@ -0,0 +1,500 @@
+package github.jackutil.compiler.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A hand-rolled matcher for the simple regular expressions that constraints mostly use, equivalent to
+ * {@code pattern.matcher(input).matches()} without allocating a {@code Matcher} or backtracking. A pattern qualifies
+ * when it is a sequence of ASCII literals, escapes such as {@code \d} or {@code \.}, and non-negated ASCII character
+ * classes, each with an optional greedy quantifier. It may be anchored with {@code ^} and {@code $} and prefixed with
+ * {@code (?i)}. Groups, alternation, {@code .}, lazy and possessive quantifiers and every other construct are left
+ * to {@code java.util.regex}.
+ *
+ * <p>Leading single-character terms are compared as a literal prefix first. What follows becomes the cheapest of
+ * three scanners: a run of one class with a length range ({@code [0-9A-Z]+}), one class per position for fixed-length
+ * patterns (UUIDs), or a bit-parallel NFA of at most 64 states that follows every possible split of the input at
+ * once. Only ASCII can match, which is also what {@code java.util.regex} does for such patterns, since no supported
+ * construct matches a character above {@code U+007F}.
+ */
+abstract class PatternScanner {
+    private static final int UNBOUNDED = Integer.MAX_VALUE;
+    private static final int MAX_COUNT = 1 << 16;
+    private static final int MAX_FIXED_POSITIONS = 1_024;
+
+    private final char[] prefix;
+
+    private PatternScanner(char[] prefix) {
+        this.prefix = prefix;
+    }
+
+    /** Compiles a scanner for {@code pattern}, or returns {@code null} when it has to be matched by the regex engine. */
+    static PatternScanner compile(Pattern pattern) {
+        int flags = pattern.flags();
+        if ((flags & ~Pattern.CASE_INSENSITIVE) != 0) {
+            return null;
+        }
+        List<Term> terms = new Parser(pattern.pattern(), (flags & Pattern.CASE_INSENSITIVE) != 0).parse();
+        return terms == null ? null : build(terms);
+    }
+
+    final boolean matches(CharSequence input) {
+        int start = prefix.length;
+        if (input.length() < start) {
+            return false;
+        }
+        for (int i = 0; i < start; i++) {
+            if (input.charAt(i) != prefix[i]) {
+                return false;
+            }
+        }
+        return matchesFrom(input, start);
+    }
+
+    /** Whether {@code input} from {@code start} to its end matches the terms after the literal prefix. */
+    abstract boolean matchesFrom(CharSequence input, int start);
+
+    private static PatternScanner build(List<Term> terms) {
+        StringBuilder prefix = new StringBuilder();
+        int first = 0;
+        while (first < terms.size() && terms.get(first).set().isSingleChar() && terms.get(first).isFixed()) {
+            Term term = terms.get(first++);
+            for (int i = 0; i < term.min(); i++) {
+                prefix.append(term.set().singleChar());
+            }
+        }
+        char[] literal = prefix.toString().toCharArray();
+        List<Term> body = terms.subList(first, terms.size());
+        if (body.size() == 1) {
+            Term term = body.get(0);
+            return new Run(literal, term.set(), term.min(), term.max());
+        }
+        int positions = 0;
+        boolean fixed = true;
+        for (Term term : body) {
+            fixed &= term.isFixed();
+            positions += term.min();
+        }
+        if (fixed) {
+            return positions <= MAX_FIXED_POSITIONS ? Fixed.of(literal, body, positions) : null;
+        }
+        return Nfa.of(literal, body);
+    }
+
+    /** {@code [set]{min,max}}: a length check and one membership test per character. */
+    private static final class Run extends PatternScanner {
+        private final AsciiSet set;
+        private final int min;
+        private final int max;
+
+        Run(char[] prefix, AsciiSet set, int min, int max) {
+            super(prefix);
+            this.set = set;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        boolean matchesFrom(CharSequence input, int start) {
+            int length = input.length();
+            int count = length - start;
+            if (count < min || count > max) {
+                return false;
+            }
+            for (int i = start; i < length; i++) {
+                if (!set.contains(input.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** A fixed-length pattern: the length must match and every position has its own class. */
+    private static final class Fixed extends PatternScanner {
+        private final long[] low;
+        private final long[] high;
+
+        private Fixed(char[] prefix, long[] low, long[] high) {
+            super(prefix);
+            this.low = low;
+            this.high = high;
+        }
+
+        static Fixed of(char[] prefix, List<Term> terms, int positions) {
+            long[] low = new long[positions];
+            long[] high = new long[positions];
+            int position = 0;
+            for (Term term : terms) {
+                for (int i = 0; i < term.min(); i++, position++) {
+                    low[position] = term.set().low();
+                    high[position] = term.set().high();
+                }
+            }
+            return new Fixed(prefix, low, high);
+        }
+
+        @Override
+        boolean matchesFrom(CharSequence input, int start) {
+            if (input.length() - start != low.length) {
+                return false;
+            }
+            for (int i = 0; i < low.length; i++) {
+                char c = input.charAt(start + i);
+                long bits = c < 64 ? low[i] : c < 128 ? high[i] : 0;
+                if ((bits & 1L << c) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A Glushkov automaton: every state consumes one character of one term, so a term {@code x{2,4}} becomes four
+     * states, the last two optional, and {@code x+} one state that follows itself. The active states are a bit set,
+     * so overlapping terms such as {@code [A-Z]*[0-9A-Z]{2}} are matched in one pass however they split the input.
+     */
+    private static final class Nfa extends PatternScanner {
+        private static final int MAX_STATES = Long.SIZE;
+
+        private final long[] statesByChar;
+        private final long[] follow;
+        private final long first;
+        private final long last;
+        private final boolean matchesEmpty;
+
+        private Nfa(char[] prefix, long[] statesByChar, long[] follow, long first, long last, boolean matchesEmpty) {
+            super(prefix);
+            this.statesByChar = statesByChar;
+            this.follow = follow;
+            this.first = first;
+            this.last = last;
+            this.matchesEmpty = matchesEmpty;
+        }
+
+        static Nfa of(char[] prefix, List<Term> terms) {
+            List<AsciiSet> sets = new ArrayList<>();
+            List<Long> follows = new ArrayList<>();
+            long first = 0;
+            // States after which the input may enter the next term, and whether it may still be at the start.
+            long tails = 0;
+            boolean atStart = true;
+            for (Term term : terms) {
+                int copies = term.max() == UNBOUNDED ? Math.max(term.min(), 1) : term.max();
+                if (sets.size() + copies > MAX_STATES) {
+                    return null;
+                }
+                long exits = 0;
+                long entry = 0;
+                for (int copy = 1; copy <= copies; copy++) {
+                    int state = sets.size();
+                    sets.add(term.set());
+                    follows.add(0L);
+                    if (copy == 1) {
+                        entry = 1L << state;
+                    } else {
+                        follows.set(state - 1, follows.get(state - 1) | 1L << state);
+                    }
+                    if (copy >= term.min()) {
+                        exits |= 1L << state;
+                    }
+                }
+                if (term.max() == UNBOUNDED) {
+                    int loop = sets.size() - 1;
+                    follows.set(loop, follows.get(loop) | 1L << loop);
+                }
+                for (long bits = tails; bits != 0; bits &= bits - 1) {
+                    int state = Long.numberOfTrailingZeros(bits);
+                    follows.set(state, follows.get(state) | entry);
+                }
+                if (atStart) {
+                    first |= entry;
+                }
+                boolean optional = term.min() == 0;
+                tails = exits | (optional ? tails : 0);
+                atStart &= optional;
+            }
+            long[] statesByChar = new long[128];
+            for (int state = 0; state < sets.size(); state++) {
+                for (char c = 0; c < 128; c++) {
+                    if (sets.get(state).contains(c)) {
+                        statesByChar[c] |= 1L << state;
+                    }
+                }
+            }
+            long[] follow = follows.stream().mapToLong(Long::longValue).toArray();
+            return new Nfa(prefix, statesByChar, follow, first, tails, atStart);
+        }
+
+        @Override
+        boolean matchesFrom(CharSequence input, int start) {
+            int length = input.length();
+            if (start == length) {
+                return matchesEmpty;
+            }
+            long candidates = first;
+            for (int i = start; ; i++) {
+                char c = input.charAt(i);
+                long active = c < 128 ? candidates & statesByChar[c] : 0;
+                if (active == 0) {
+                    return false;
+                }
+                if (i == length - 1) {
+                    return (active & last) != 0;
+                }
+                candidates = 0;
+                for (long bits = active; bits != 0; bits &= bits - 1) {
+                    candidates |= follow[Long.numberOfTrailingZeros(bits)];
+                }
+            }
+        }
+    }
+
+    /** One atom and its quantifier; {@code max} is {@link #UNBOUNDED} for {@code *}, {@code +} and {@code {n,}}. */
+    private record Term(AsciiSet set, int min, int max) {
+        boolean isFixed() {
+            return min == max;
+        }
+    }
+
+    /** A set of ASCII characters as two 64-bit masks. */
+    private record AsciiSet(long low, long high) {
+        static final AsciiSet DIGITS = range('0', '9');
+        static final AsciiSet WORD = range('a', 'z').union(range('A', 'Z')).union(DIGITS).union(of('_'));
+        static final AsciiSet SPACE = of(' ').union(of('\t')).union(of('\n')).union(of('\u000B')).union(of('\f'))
+            .union(of('\r'));
+
+        static AsciiSet of(char c) {
+            return c < 64 ? new AsciiSet(1L << c, 0) : new AsciiSet(0, 1L << c);
+        }
+
+        static AsciiSet range(char from, char to) {
+            long low = 0;
+            long high = 0;
+            for (char c = from; c <= to; c++) {
+                if (c < 64) {
+                    low |= 1L << c;
+                } else {
+                    high |= 1L << c;
+                }
+            }
+            return new AsciiSet(low, high);
+        }
+
+        AsciiSet union(AsciiSet other) {
+            return new AsciiSet(low | other.low, high | other.high);
+        }
+
+        /** Adds the other case of every letter, as {@code CASE_INSENSITIVE} without {@code UNICODE_CASE} does. */
+        AsciiSet caseFolded() {
+            // Letters are in the high mask: 'A'..'Z' at bits 1..26, 'a'..'z' at bits 33..58.
+            long upper = high & 0x7FFFFFEL;
+            long lower = high & 0x7FFFFFEL << 32;
+            return new AsciiSet(low, high | upper << 32 | lower >>> 32);
+        }
+
+        boolean contains(char c) {
+            return c < 64 ? (low & 1L << c) != 0 : c < 128 && (high & 1L << c) != 0;
+        }
+
+        boolean isSingleChar() {
+            return Long.bitCount(low) + Long.bitCount(high) == 1;
+        }
+
+        char singleChar() {
+            return (char) (low != 0 ? Long.numberOfTrailingZeros(low) : 64 + Long.numberOfTrailingZeros(high));
+        }
+    }
+
+    /** Reads a pattern into terms, or yields {@code null} at the first construct the scanners do not support. */
+    private static final class Parser {
+        private final String regex;
+        private boolean caseInsensitive;
+        private int pos;
+
+        Parser(String regex, boolean caseInsensitive) {
+            this.regex = regex;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        List<Term> parse() {
+            if (regex.startsWith("(?i)")) {
+                caseInsensitive = true;
+                pos = 4;
+            }
+            // matches() consumes the whole input, so anchors at the edges change nothing.
+            if (pos < regex.length() && regex.charAt(pos) == '^') {
+                pos++;
+            }
+            int end = regex.length();
+            if (end > pos && regex.charAt(end - 1) == '$' && !escaped(end - 1)) {
+                end--;
+            }
+            List<Term> terms = new ArrayList<>();
+            while (pos < end) {
+                AsciiSet set = atom(end);
+                if (set == null) {
+                    return null;
+                }
+                if (caseInsensitive) {
+                    set = set.caseFolded();
+                }
+                Term term = quantified(set, end);
+                if (term == null) {
+                    return null;
+                }
+                terms.add(term);
+            }
+            return pos == end ? terms : null;
+        }
+
+        private AsciiSet atom(int end) {
+            char c = regex.charAt(pos++);
+            return switch (c) {
+                case '[' -> characterClass(end);
+                case '\\' -> pos < end ? escape(regex.charAt(pos++)) : null;
+                case '.', '(', ')', '|', '*', '+', '?', '{', '}', '^', '$', ']' -> null;
+                default -> c < 128 ? AsciiSet.of(c) : null;
+            };
+        }
+
+        private Term quantified(AsciiSet set, int end) {
+            if (pos == end) {
+                return new Term(set, 1, 1);
+            }
+            int min;
+            int max;
+            switch (regex.charAt(pos)) {
+                case '?' -> {
+                    min = 0;
+                    max = 1;
+                    pos++;
+                }
+                case '*' -> {
+                    min = 0;
+                    max = UNBOUNDED;
+                    pos++;
+                }
+                case '+' -> {
+                    min = 1;
+                    max = UNBOUNDED;
+                    pos++;
+                }
+                case '{' -> {
+                    pos++;
+                    min = number(end);
+                    if (min < 0 || pos == end) {
+                        return null;
+                    }
+                    max = min;
+                    if (regex.charAt(pos) == ',') {
+                        pos++;
+                        max = pos < end && regex.charAt(pos) == '}' ? UNBOUNDED : number(end);
+                        if (max < min) {
+                            return null;
+                        }
+                    }
+                    if (pos == end || regex.charAt(pos++) != '}') {
+                        return null;
+                    }
+                }
+                default -> {
+                    return new Term(set, 1, 1);
+                }
+            }
+            // Lazy and possessive quantifiers are left to the regex engine.
+            if (pos < end && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+')) {
+                return null;
+            }
+            return new Term(set, min, max);
+        }
+
+        private int number(int end) {
+            int start = pos;
+            int value = 0;
+            while (pos < end && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '9') {
+                value = value * 10 + regex.charAt(pos++) - '0';
+                if (value > MAX_COUNT) {
+                    return -1;
+                }
+            }
+            return pos > start ? value : -1;
+        }
+
+        private AsciiSet characterClass(int end) {
+            if (pos < end && (regex.charAt(pos) == '^' || regex.charAt(pos) == ']')) {
+                return null;
+            }
+            AsciiSet set = new AsciiSet(0, 0);
+            boolean firstItem = true;
+            while (pos < end) {
+                char c = regex.charAt(pos++);
+                if (c == ']') {
+                    return firstItem ? null : set;
+                }
+                if (c == '[' || c == '&' && pos < end && regex.charAt(pos) == '&') {
+                    return null;
+                }
+                AsciiSet item;
+                char single;
+                if (c == '\\') {
+                    if (pos == end) {
+                        return null;
+                    }
+                    item = escape(regex.charAt(pos++));
+                    if (item == null) {
+                        return null;
+                    }
+                    if (!item.isSingleChar()) {
+                        set = set.union(item);
+                        firstItem = false;
+                        continue;
+                    }
+                    single = item.singleChar();
+                } else if (c == '-' && !firstItem && !(pos < end && regex.charAt(pos) == ']')) {
+                    // A hyphen between items is ambiguous enough to leave to the regex engine.
+                    return null;
+                } else if (c >= 128) {
+                    return null;
+                } else {
+                    single = c;
+                }
+                if (pos + 1 < end && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                    pos++;
+                    char to = regex.charAt(pos++);
+                    if (to == '\\' || to == '[' || to >= 128 || to < single) {
+                        return null;
+                    }
+                    set = set.union(AsciiSet.range(single, to));
+                } else {
+                    set = set.union(AsciiSet.of(single));
+                }
+                firstItem = false;
+            }
+            return null;
+        }
+
+        private AsciiSet escape(char c) {
+            return switch (c) {
+                case 'd' -> AsciiSet.DIGITS;
+                case 'w' -> AsciiSet.WORD;
+                case 's' -> AsciiSet.SPACE;
+                case 't' -> AsciiSet.of('\t');
+                case 'n' -> AsciiSet.of('\n');
+                case 'r' -> AsciiSet.of('\r');
+                case 'f' -> AsciiSet.of('\f');
+                default -> c < 128 && !Character.isLetterOrDigit(c) ? AsciiSet.of(c) : null;
+            };
+        }
+
+        private boolean escaped(int index) {
+            int backslashes = 0;
+            for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+                backslashes++;
+            }
+            return backslashes % 2 == 1;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package github.jackutil.compiler.runtime;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import github.jackutil.compiler.ir.enums.ValueType;
+import github.jackutil.compiler.ir.resolved.ResolvedVariable;
+
+/**
+ * Binds a payload straight from a parser in one pass. Only top-level fields named by a variable are read; every
+ * other subtree is skipped with {@code skipChildren()}, so a large payload with few referenced fields costs a
+ * token scan rather than a full materialization. Values land in variable slots in the form the resolver would
+ * coerce them to anyway: scalars are read directly and only referenced objects and arrays become maps and lists.
+ * Immutable and shared by all execution contexts of a plan.
+ */
+final class PayloadExtractor {
+    private final NameIndex slots;
+    private final ValueType[] types;
+
+    PayloadExtractor(List<ResolvedVariable> variables) {
+        this.slots = NameIndex.of(variables.stream().map(ResolvedVariable::name).toList());
+        this.types = new ValueType[variables.size()];
+        for (int i = 0; i < variables.size(); i++) {
+            types[i] = variables.get(i).type();
+        }
+    }
+
+    int size() {
+        return types.length;
+    }
+
+    /**
+     * Reads one payload object into {@code values}, indexed like the plan's variables; absent fields are left
+     * {@code null}. The parser may be positioned before or on the opening brace and is left on the closing one.
+     * End of input and a JSON {@code null} bind an empty payload.
+     */
+    void extract(JsonParser parser, Object[] values) throws IOException {
+        Arrays.fill(values, null);
+        JsonToken token = parser.currentToken() != null ? parser.currentToken() : parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Payload must be a JSON object, not " + token);
+        }
+        for (token = parser.nextToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            // Parser field names are canonical strings with cached hashes, so the lookup neither allocates nor
+            // rehashes.
+            int slot = slots.indexOf(parser.currentName());
+            token = parser.nextToken();
+            if (slot < 0) {
+                parser.skipChildren();
+            } else {
+                values[slot] = readScalarOrTree(parser, token, types[slot]);
+            }
+        }
+    }
+
+    private static Object readScalarOrTree(JsonParser parser, JsonToken token, ValueType type) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> type == ValueType.INTEGER && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER
+                ? Long.valueOf(parser.getLongValue())
+                : parser.getNumberValue();
+            case VALUE_NUMBER_FLOAT -> parser.getNumberValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            default -> readTree(parser, token);
+        };
+    }
+
+    /**
+     * Materializes an object or array the way an untyped {@code ObjectMapper} read would.
+     */
+    private static Object readTree(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_OBJECT) {
+            Map<String, Object> object = new LinkedHashMap<>();
+            for (JsonToken next = parser.nextToken(); next == JsonToken.FIELD_NAME; next = parser.nextToken()) {
+                String name = parser.currentName();
+                object.put(name, readScalarOrTree(parser, parser.nextToken(), null));
+            }
+            return object;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            List<Object> array = new ArrayList<>();
+            for (JsonToken next = parser.nextToken(); next != JsonToken.END_ARRAY; next = parser.nextToken()) {
+                array.add(readScalarOrTree(parser, next, null));
+            }
+            return array;
+        }
+        if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            return parser.getEmbeddedObject();
+        }
+        throw new JsonParseException(parser, "Unexpected token in payload: " + token);
+    }
+}
@@ -1,16 +1,21 @@
 package github.jackutil.compiler.runtime;
 
-import java.util.List;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import github.jackutil.compiler.ir.FunctionDef;
 
 final class RegexFunctionRuntime implements FunctionRuntime {
     private final Pattern pattern;
+    private final PatternScanner scanner;
+    // Patterns without a scanner reuse one Matcher per thread; the runtime is shared by every engine thread.
+    private final ThreadLocal<Matcher> matchers;
     private final String description;
 
     RegexFunctionRuntime(FunctionDef function) {
         this.pattern = (Pattern) function.payload();
+        this.scanner = PatternScanner.compile(pattern);
+        this.matchers = scanner == null ? ThreadLocal.withInitial(() -> pattern.matcher("")) : null;
         this.description = function.description() != null ? function.description() : "regex";
     }
 
@@ -22,13 +27,26 @@ final class RegexFunctionRuntime implements FunctionRuntime {
         if (!(value instanceof CharSequence sequence)) {
             throw new IllegalStateException("Regex function expects a string value: " + description);
         }
-        if (!pattern.matcher(sequence).matches()) {
+        if (!matches(sequence)) {
             throw new IllegalStateException("Value '" + sequence + "' does not match pattern " + pattern.pattern());
         }
     }
 
+    private boolean matches(CharSequence sequence) {
+        if (scanner != null) {
+            return scanner.matches(sequence);
+        }
+        Matcher matcher = matchers.get();
+        try {
+            return matcher.reset(sequence).matches();
+        } finally {
+            // Do not keep the last value reachable from the thread.
+            matcher.reset("");
+        }
+    }
+
     @Override
-    public Object derive(List<Object> args) {
+    public Object derive(Object[] args) {
         throw new UnsupportedOperationException("Regex functions cannot derive values");
     }
 }
@@ -0,0 +1,133 @@
+package github.jackutil.compiler.runtime;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The current time formatted with one UTC pattern, reformatted only when the clock enters a new window of the
+ * pattern's smallest unit: a {@code HH:mm:ss} pattern formats once per second however often it is read. The last
+ * result is published as an immutable stamp, so concurrent readers never lock and a race only costs a duplicate
+ * format. Patterns that print below a millisecond are formatted on every call.
+ */
+final class TimestampCache {
+    private static final long MILLIS_PER_SECOND = 1_000L;
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final long MILLIS_PER_HOUR = 3_600_000L;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final DateTimeFormatter formatter;
+    private final long unitMillis;
+    private final boolean isoInstant;
+    private volatile Stamp last = new Stamp(Long.MIN_VALUE, null);
+
+    private TimestampCache(DateTimeFormatter formatter, long unitMillis, boolean isoInstant) {
+        this.formatter = formatter;
+        this.unitMillis = unitMillis;
+        this.isoInstant = isoInstant;
+    }
+
+    /** A cache for a {@link DateTimeFormatter#ofPattern} pattern, formatted in UTC. */
+    static TimestampCache ofPattern(String pattern) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+        return new TimestampCache(formatter, unitMillis(pattern), false);
+    }
+
+    /**
+     * A cache for {@link DateTimeFormatter#ISO_INSTANT}, which prints the clock's full precision. Only the text up
+     * to the seconds is cached; the fraction is appended per call exactly as the formatter would print it.
+     */
+    static TimestampCache isoInstant() {
+        return new TimestampCache(DateTimeFormatter.ISO_INSTANT, MILLIS_PER_SECOND, true);
+    }
+
+    String format(Clock clock) {
+        if (isoInstant) {
+            Instant now = clock.instant();
+            String seconds = stamp(now.getEpochSecond());
+            return now.getNano() == 0 ? seconds : withFraction(seconds, now.getNano());
+        }
+        if (unitMillis == 0) {
+            return formatter.format(clock.instant());
+        }
+        return stamp(Math.floorDiv(clock.millis(), unitMillis));
+    }
+
+    private String stamp(long window) {
+        Stamp stamp = last;
+        if (stamp.window() == window) {
+            return stamp.text();
+        }
+        Instant start = isoInstant ? Instant.ofEpochSecond(window) : Instant.ofEpochMilli(window * unitMillis);
+        String text = formatter.format(start);
+        last = new Stamp(window, text);
+        return text;
+    }
+
+    /** Inserts the fraction before the trailing {@code Z} in groups of three digits, as {@code ISO_INSTANT} does. */
+    private static String withFraction(String seconds, int nano) {
+        StringBuilder builder = new StringBuilder(seconds.length() + 10);
+        builder.append(seconds, 0, seconds.length() - 1).append('.');
+        if (nano % 1_000_000 == 0) {
+            digits(builder, nano / 1_000_000, 3);
+        } else if (nano % 1_000 == 0) {
+            digits(builder, nano / 1_000, 6);
+        } else {
+            digits(builder, nano, 9);
+        }
+        return builder.append('Z').toString();
+    }
+
+    private static void digits(StringBuilder builder, int value, int width) {
+        int start = builder.length();
+        builder.setLength(start + width);
+        for (int i = start + width - 1; i >= start; i--) {
+            builder.setCharAt(i, (char) ('0' + value % 10));
+            value /= 10;
+        }
+    }
+
+    /**
+     * The length of the smallest unit a pattern prints, in milliseconds, or {@code 0} when it prints nanoseconds
+     * or more than three fraction digits. Quoted literals are skipped. Every window starts at a multiple of the
+     * unit since the epoch, which in UTC is also the start of that second, minute, hour or day. Fields coarser
+     * than a day change on day boundaries, so a day window is exact for them too.
+     */
+    static long unitMillis(String pattern) {
+        long unit = MILLIS_PER_DAY;
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+                continue;
+            }
+            if (quoted || !(c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z')) {
+                continue;
+            }
+            int width = 1;
+            while (i + 1 < pattern.length() && pattern.charAt(i + 1) == c) {
+                width++;
+                i++;
+            }
+            unit = Math.min(unit, letterUnit(c, width));
+        }
+        return unit;
+    }
+
+    private static long letterUnit(char letter, int width) {
+        return switch (letter) {
+            case 'n', 'N' -> 0;
+            case 'S' -> width > 3 ? 0 : 1;
+            case 'A' -> 1;
+            case 's' -> MILLIS_PER_SECOND;
+            case 'm' -> MILLIS_PER_MINUTE;
+            case 'H', 'h', 'k', 'K', 'a', 'B' -> MILLIS_PER_HOUR;
+            default -> MILLIS_PER_DAY;
+        };
+    }
+
+    private record Stamp(long window, String text) {
+    }
+}
@@ -0,0 +1,122 @@
+package github.jackutil.compiler.runtime;
+
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Where the {@code uuid}, {@code uuid_compact} and {@code uuid_urn} builtins take their bits from. Every source
+ * formats its UUID straight into a {@code char[]}, so the compact and URN forms cost no more than the canonical one.
+ * The engine default is {@link #SECURE}, or the source named by the {@code jme.uuid.source} system property.
+ */
+public enum UuidSource {
+    /** Version 4 from {@link UUID#randomUUID()}. Cryptographically strong, but every thread shares one {@code SecureRandom}. */
+    SECURE {
+        @Override
+        String next(Clock clock, int layout) {
+            UUID uuid = UUID.randomUUID();
+            return format(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), layout);
+        }
+    },
+    /**
+     * Version 4 from a {@code SplittableRandom} per thread, each seeded once from {@code SecureRandom}. Threads never
+     * contend, but the values are not suitable as secrets.
+     */
+    RANDOM {
+        @Override
+        String next(Clock clock, int layout) {
+            SplittableRandom random = RANDOMS.get();
+            long msb = random.nextLong() & ~0xF000L | 0x4000L;
+            long lsb = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+            return format(msb, lsb, layout);
+        }
+    },
+    /**
+     * Version 7: the clock's Unix epoch milliseconds in the top 48 bits followed by random bits from the per-thread generator,
+     * so values sort by creation time at millisecond granularity and index well as keys.
+     */
+    TIME_ORDERED {
+        @Override
+        String next(Clock clock, int layout) {
+            SplittableRandom random = RANDOMS.get();
+            long msb = clock.millis() << 16 | 0x7000L | random.nextInt(0x1000);
+            long lsb = random.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+            return format(msb, lsb, layout);
+        }
+    };
+
+    static final int CANONICAL = 0;
+    static final int COMPACT = 1;
+    static final int URN = 2;
+
+    private static final String SOURCE_PROPERTY = "jme.uuid.source";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final char[] URN_PREFIX = "urn:uuid:".toCharArray();
+    private static final SecureRandom SEEDS = new SecureRandom();
+    private static final ThreadLocal<SplittableRandom> RANDOMS = ThreadLocal.withInitial(() -> {
+        synchronized (SEEDS) {
+            return new SplittableRandom(SEEDS.nextLong());
+        }
+    });
+
+    /**
+     * A new UUID in {@link #CANONICAL}, {@link #COMPACT} (no hyphens) or {@link #URN} form. Time-based sources read
+     * {@code clock}, the same one the runtime's date builtins read.
+     */
+    abstract String next(Clock clock, int layout);
+
+    /**
+     * The source named by {@code jme.uuid.source} ({@code secure}, {@code random} or {@code time_ordered}),
+     * or {@link #SECURE} when the property is not set.
+     */
+    public static UuidSource configured() {
+        String name = System.getProperty(SOURCE_PROPERTY);
+        if (name == null || name.isBlank()) {
+            return SECURE;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Unknown " + SOURCE_PROPERTY + ": " + name, ex);
+        }
+    }
+
+    static String format(long msb, long lsb, int layout) {
+        boolean hyphens = layout != COMPACT;
+        int offset = layout == URN ? URN_PREFIX.length : 0;
+        char[] chars = new char[offset + (hyphens ? 36 : 32)];
+        if (offset > 0) {
+            System.arraycopy(URN_PREFIX, 0, chars, 0, offset);
+        }
+        int pos = offset;
+        pos = hex(chars, pos, msb >>> 32, 8);
+        pos = separator(chars, pos, hyphens);
+        pos = hex(chars, pos, msb >>> 16, 4);
+        pos = separator(chars, pos, hyphens);
+        pos = hex(chars, pos, msb, 4);
+        pos = separator(chars, pos, hyphens);
+        pos = hex(chars, pos, lsb >>> 48, 4);
+        pos = separator(chars, pos, hyphens);
+        hex(chars, pos, lsb, 12);
+        return new String(chars);
+    }
+
+    /** Writes the low {@code digits} nibbles of {@code value}, most significant first. */
+    private static int hex(char[] chars, int pos, long value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            chars[pos + i] = HEX[(int) value & 0xF];
+            value >>>= 4;
+        }
+        return pos + digits;
+    }
+
+    private static int separator(char[] chars, int pos, boolean hyphens) {
+        if (!hyphens) {
+            return pos;
+        }
+        chars[pos] = '-';
+        return pos + 1;
+    }
+}
@@ -1,11 +1,15 @@
 package github.jackutil.compiler.runtime;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonParser;
 
 import github.jackutil.compiler.diagnostics.MappingException;
 import github.jackutil.compiler.ir.enums.ValueType;
@@ -14,35 +18,101 @@ import github.jackutil.compiler.ir.resolved.ResolvedVariable;
 final class VariableResolver {
     private final List<ResolvedVariable> variables;
     private final FunctionExecutor functions;
+    private final Object[][] deriveArguments;
     private final Object[] values;
-    private final boolean[] resolved;
+    private final int[] generations;
+    private int generation;
     private Map<String, Object> payload;
+    private Object[] extracted;
+    private boolean streamed;
+    private boolean bound;
+    private DeferredSnapshot pending;
 
     VariableResolver(List<ResolvedVariable> variables, FunctionExecutor functions) {
+        this(variables, functions, functions.deriveArguments(variables));
+    }
+
+    VariableResolver(List<ResolvedVariable> variables, FunctionExecutor functions, Object[][] deriveArguments) {
         this.variables = variables;
         this.functions = functions;
+        this.deriveArguments = deriveArguments;
         this.values = new Object[variables.size()];
-        this.resolved = new boolean[variables.size()];
+        this.generations = new int[variables.size()];
+        this.generation = 1;
+    }
+
+    private VariableResolver(VariableResolver source) {
+        this.variables = source.variables;
+        this.functions = source.functions;
+        this.deriveArguments = source.deriveArguments;
+        this.values = source.values.clone();
+        this.generations = source.generations.clone();
+        this.generation = source.generation;
+        this.payload = source.payload;
+        this.extracted = source.extracted != null ? source.extracted.clone() : null;
+        this.streamed = source.streamed;
+        this.bound = source.bound;
     }
 
     void bindPayload(Map<String, Object> payload) {
+        detachPending();
         this.payload = payload;
-        Arrays.fill(values, null);
-        Arrays.fill(resolved, false);
+        this.streamed = false;
+        this.bound = true;
+        nextGeneration();
+    }
+
+    /**
+     * Binds the payload object the parser is positioned at, reading only the fields that name a variable into
+     * slots reused across bindings.
+     */
+    void bindPayload(JsonParser parser, PayloadExtractor extractor) throws IOException {
+        detachPending();
+        if (extracted == null) {
+            extracted = new Object[extractor.size()];
+        }
+        this.payload = null;
+        this.streamed = true;
+        this.bound = true;
+        nextGeneration();
+        extractor.extract(parser, extracted);
     }
 
     Object valueOf(int variableId) {
         if (variableId < 0 || variableId >= variables.size()) {
             throw MappingException.of("VARIABLE_UNKNOWN_ID", "Unknown variable id: " + variableId, "/VARIABLES");
         }
-        if (!resolved[variableId]) {
-            values[variableId] = resolve(variables.get(variableId));
-            resolved[variableId] = true;
+        if (generations[variableId] != generation) {
+            values[variableId] = resolve(variableId, variables.get(variableId));
+            generations[variableId] = generation;
         }
         return values[variableId];
     }
 
+    /**
+     * Drops the payload and every resolved value once an execution ends, keeping only the slot arrays, so a pooled
+     * frame never holds on to caller data between executions. A snapshot captured during the execution and not read
+     * yet takes its own copy first.
+     */
+    void release() {
+        detachPending();
+        this.payload = null;
+        this.streamed = false;
+        this.bound = false;
+        Arrays.fill(values, null);
+        if (extracted != null) {
+            Arrays.fill(extracted, null);
+        }
+        nextGeneration();
+    }
+
     Map<String, Object> snapshotValues() {
+        requireBound();
+        detachPending();
+        return collectValues();
+    }
+
+    private Map<String, Object> collectValues() {
         Map<String, Object> snapshot = new LinkedHashMap<>(variables.size());
         for (int i = 0; i < variables.size(); i++) {
             ResolvedVariable variable = variables.get(i);
@@ -51,14 +121,50 @@ final class VariableResolver {
         return Collections.unmodifiableMap(snapshot);
     }
 
-    private Object resolve(ResolvedVariable variable) {
-        Object value = payload != null ? payload.get(variable.name()) : null;
+    /**
+     * Captures the current binding for a snapshot taken later. Nothing is resolved or copied until the frame is
+     * released or rebound; only then, and only if the snapshot is still unread, are its slots copied. Every capture
+     * of one binding shares one snapshot.
+     */
+    Supplier<Map<String, Object>> deferSnapshot() {
+        requireBound();
+        if (pending == null) {
+            pending = new DeferredSnapshot(this);
+        }
+        return pending;
+    }
+
+    /** Gives an unread snapshot its own copy of the slots before this frame changes them. */
+    private void detachPending() {
+        DeferredSnapshot snapshot = pending;
+        if (snapshot != null) {
+            pending = null;
+            snapshot.detach();
+        }
+    }
+
+    private void requireBound() {
+        if (!bound) {
+            throw new IllegalStateException("No execution is bound on this thread");
+        }
+    }
+
+    private void nextGeneration() {
+        // Bumping the generation invalidates every slot at once; values are overwritten lazily on next use.
+        if (++generation == 0) {
+            Arrays.fill(generations, 0);
+            generation = 1;
+        }
+    }
+
+    private Object resolve(int variableId, ResolvedVariable variable) {
+        Object value = streamed ? extracted[variableId] : payload != null ? payload.get(variable.name()) : null;
         if (value == null && variable.defaultValue() != null) {
             value = variable.defaultValue();
         }
         if (value == null && variable.deriveFunctionId() != null) {
             try {
-                value = functions.derive(variable.deriveFunctionId(), variable.deriveArgs());
+                value = functions.derive(variable.deriveFunctionId(), deriveArguments[variableId]);
             } catch (RuntimeException ex) {
                 throw MappingException.of("VARIABLE_DERIVE", ex.getMessage(), pointer(variable));
             }
@@ -85,7 +191,7 @@ final class VariableResolver {
             return switch (type) {
                 case STRING -> value instanceof String ? value : String.valueOf(value);
                 case NUMBER -> toBigDecimal(value);
-                case INTEGER -> toBigDecimal(value).longValueExact();
+                case INTEGER -> toLong(value);
                 case BOOLEAN -> toBoolean(value);
                 case ARRAY -> ensureType(value, List.class, "array", variable);
                 case OBJECT -> ensureType(value, Map.class, "object", variable);
@@ -102,6 +208,16 @@ final class VariableResolver {
         return value;
     }
 
+    private Long toLong(Object value) {
+        if (value instanceof Long l) {
+            return l;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        return toBigDecimal(value).longValueExact();
+    }
+
     private BigDecimal toBigDecimal(Object value) {
         if (value instanceof BigDecimal bd) {
             return bd;
@@ -126,4 +242,33 @@ final class VariableResolver {
     private String pointer(ResolvedVariable variable) {
         return "/VARIABLES/" + variable.name();
     }
+
+    /**
+     * A snapshot that resolves against the live frame until the frame is released or rebound, and against a private
+     * copy of the frame afterwards. Reads and the detaching copy synchronize on the snapshot, so it may be read from any
+     * thread.
+     */
+    private static final class DeferredSnapshot implements Supplier<Map<String, Object>> {
+        private VariableResolver resolver;
+        private Map<String, Object> values;
+
+        DeferredSnapshot(VariableResolver resolver) {
+            this.resolver = resolver;
+        }
+
+        @Override
+        public synchronized Map<String, Object> get() {
+            if (values == null) {
+                values = resolver.collectValues();
+                resolver = null;
+            }
+            return values;
+        }
+
+        synchronized void detach() {
+            if (values == null) {
+                resolver = new VariableResolver(resolver);
+            }
+        }
+    }
 }
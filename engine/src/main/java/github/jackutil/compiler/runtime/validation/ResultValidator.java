@@ -2,6 +2,7 @@ package github.jackutil.compiler.runtime.validation;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -15,8 +16,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.networknt.schema.JsonSchema;
 import com.networknt.schema.JsonSchemaFactory;
 import com.networknt.schema.JsonNodePath;
@@ -97,7 +100,26 @@ public final class ResultValidator {
         if (checks.isEmpty()) {
             return;
         }
-        JsonNode node = mapper.valueToTree(output);
+        validate((JsonNode) mapper.valueToTree(output));
+    }
+
+    /**
+     * Validates output captured as a token stream; the buffer is replayed and can still be serialized afterwards.
+     */
+    public void validate(TokenBuffer output) {
+        if (checks.isEmpty()) {
+            return;
+        }
+        JsonNode node;
+        try (JsonParser parser = output.asParser()) {
+            node = mapper.readTree(parser);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to replay execution output", ex);
+        }
+        validate(node != null ? node : mapper.createObjectNode());
+    }
+
+    public void validate(JsonNode node) {
         for (SchemaCheck check : checks) {
             Set<ValidationMessage> messages;
             try {
@@ -0,0 +1,175 @@
+package github.jackutil.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Collects UTF-8 output in pooled direct buffers and passes full buffers on in batches: to a channel, using one
+ * gathering write per batch when the channel supports it, or to a caller-supplied {@link BufferSink}. Handing a
+ * Jackson byte generator this stream keeps output free of a char layer and of growing heap arrays. Channels are
+ * expected to be in blocking mode. Instances are not thread-safe.
+ */
+public final class DirectBufferOutputStream extends OutputStream {
+    private static final int MAX_PENDING = 16;
+
+    private final DirectBufferPool pool;
+    private final WritableByteChannel channel;
+    private final BufferSink sink;
+    private final boolean closeChannel;
+    private final ByteBuffer[] pending = new ByteBuffer[MAX_PENDING];
+
+    private int pendingCount;
+    private ByteBuffer current;
+    private boolean closed;
+
+    public DirectBufferOutputStream(WritableByteChannel channel) {
+        this(channel, DirectBufferPool.shared(), false);
+    }
+
+    /**
+     * @param closeChannel whether {@link #close()} also closes {@code channel}
+     */
+    public DirectBufferOutputStream(WritableByteChannel channel, DirectBufferPool pool, boolean closeChannel) {
+        this.channel = Objects.requireNonNull(channel, "channel");
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.sink = null;
+        this.closeChannel = closeChannel;
+    }
+
+    public DirectBufferOutputStream(BufferSink sink) {
+        this(sink, DirectBufferPool.shared());
+    }
+
+    public DirectBufferOutputStream(BufferSink sink, DirectBufferPool pool) {
+        this.sink = Objects.requireNonNull(sink, "sink");
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.channel = null;
+        this.closeChannel = false;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (current == null) {
+            current = pool.acquire();
+        }
+        current.put((byte) b);
+        if (!current.hasRemaining()) {
+            retire();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (current == null) {
+                current = pool.acquire();
+            }
+            int count = Math.min(len, current.remaining());
+            current.put(b, off, count);
+            off += count;
+            len -= count;
+            if (!current.hasRemaining()) {
+                retire();
+            }
+        }
+    }
+
+    /**
+     * Passes every buffered byte on, including a partly filled buffer.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (current != null && current.position() > 0) {
+            retire();
+        }
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            if (current != null) {
+                pool.release(current);
+                current = null;
+            }
+            releasePending();
+            if (closeChannel) {
+                channel.close();
+            }
+        }
+    }
+
+    private void retire() throws IOException {
+        pending[pendingCount++] = current.flip();
+        current = null;
+        if (pendingCount == MAX_PENDING) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (pendingCount == 0) {
+            return;
+        }
+        try {
+            if (sink != null) {
+                for (int i = 0; i < pendingCount; i++) {
+                    sink.write(pending[i]);
+                }
+            } else if (channel instanceof GatheringByteChannel gathering) {
+                long remaining = 0;
+                for (int i = 0; i < pendingCount; i++) {
+                    remaining += pending[i].remaining();
+                }
+                while (remaining > 0) {
+                    remaining -= gathering.write(pending, 0, pendingCount);
+                }
+            } else {
+                for (int i = 0; i < pendingCount; i++) {
+                    while (pending[i].hasRemaining()) {
+                        channel.write(pending[i]);
+                    }
+                }
+            }
+        } finally {
+            releasePending();
+        }
+    }
+
+    private void releasePending() {
+        for (int i = 0; i < pendingCount; i++) {
+            pool.release(pending[i]);
+            pending[i] = null;
+        }
+        pendingCount = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Receives filled buffers, positioned at their first byte. A buffer is only valid for the duration of the
+     * call: it returns to the pool afterwards, so a sink that keeps the bytes must copy them.
+     */
+    @FunctionalInterface
+    public interface BufferSink {
+        void write(ByteBuffer buffer) throws IOException;
+    }
+}
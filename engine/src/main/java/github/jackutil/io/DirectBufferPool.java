@@ -0,0 +1,63 @@
+package github.jackutil.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recycles fixed-size direct buffers between writers. Direct buffers are expensive to allocate and are only freed
+ * by the garbage collector, so writers return them here instead of dropping them. At most {@code maxRetained}
+ * idle buffers are kept; surplus releases are left to the collector.
+ */
+public final class DirectBufferPool {
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+    private static final DirectBufferPool SHARED = new DirectBufferPool(DEFAULT_BUFFER_BYTES, 64);
+
+    private final int bufferBytes;
+    private final int maxRetained;
+    private final ConcurrentLinkedQueue<ByteBuffer> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public DirectBufferPool(int bufferBytes, int maxRetained) {
+        if (bufferBytes <= 0) {
+            throw new IllegalArgumentException("bufferBytes must be positive");
+        }
+        this.bufferBytes = bufferBytes;
+        this.maxRetained = maxRetained;
+    }
+
+    public static DirectBufferPool shared() {
+        return SHARED;
+    }
+
+    public int bufferBytes() {
+        return bufferBytes;
+    }
+
+    /**
+     * Returns a cleared buffer of {@link #bufferBytes()} capacity.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferBytes);
+        }
+        idleCount.decrementAndGet();
+        return buffer.clear();
+    }
+
+    /**
+     * Hands a buffer back; the caller must not touch it afterwards. Buffers this pool did not size are ignored.
+     */
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect() || buffer.capacity() != bufferBytes) {
+            return;
+        }
+        if (idleCount.incrementAndGet() > maxRetained) {
+            idleCount.decrementAndGet();
+            return;
+        }
+        idle.offer(buffer);
+    }
+}
@@ -0,0 +1,255 @@
+package github.jackutil.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+
+/**
+ * A multi-record payload file mapped read-only into memory. Files larger than one mapping window are covered by
+ * several windows, so sizes beyond 2 GB work. {@link #split} finds record boundaries with a byte scan instead of a
+ * parse and cuts the file into ranges that each hold whole records, and {@link #openParser} copies one range out
+ * of the mapping straight into the byte array a Jackson parser reads from. Reads use absolute buffer access only,
+ * so ranges may be opened from several threads at once.
+ */
+public final class MappedPayloadFile implements Closeable {
+    public static final int DEFAULT_WINDOW_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final Layout layout;
+    private final long size;
+    private final int windowBytes;
+    private final MappedByteBuffer[] windows;
+
+    private MappedPayloadFile(FileChannel channel, Layout layout, int windowBytes) throws IOException {
+        this.channel = channel;
+        this.layout = layout;
+        this.size = channel.size();
+        this.windowBytes = windowBytes;
+        int count = (int) ((size + windowBytes - 1) / windowBytes);
+        this.windows = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i * windowBytes;
+            windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowBytes, size - offset));
+        }
+    }
+
+    public static MappedPayloadFile open(Path path, Layout layout) throws IOException {
+        return open(path, layout, DEFAULT_WINDOW_BYTES);
+    }
+
+    public static MappedPayloadFile open(Path path, Layout layout, int windowBytes) throws IOException {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(layout, "layout");
+        if (windowBytes <= 0) {
+            throw new IllegalArgumentException("windowBytes must be positive");
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MappedPayloadFile(channel, layout, windowBytes);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public Layout layout() {
+        return layout;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Cuts the file into ranges of roughly {@code targetBytes}, each ending on a record boundary. A range is only
+     * larger than the target when a single record is.
+     */
+    public List<Range> split(long targetBytes) throws IOException {
+        if (targetBytes <= 0) {
+            throw new IllegalArgumentException("targetBytes must be positive");
+        }
+        return layout == Layout.NDJSON ? splitLines(targetBytes) : splitArray(targetBytes);
+    }
+
+    /**
+     * Opens a parser over the records of {@code range}; each {@code nextToken()} at the top level starts the next
+     * record until the parser returns {@code null} or, for {@link Layout#JSON_ARRAY}, {@code END_ARRAY}.
+     */
+    public JsonParser openParser(JsonFactory factory, Range range) throws IOException {
+        int length = Math.toIntExact(range.length());
+        if (layout == Layout.NDJSON) {
+            byte[] data = new byte[length];
+            copy(range.start(), data, 0, length);
+            return factory.createParser(data);
+        }
+        // Array ranges hold comma-separated elements; re-wrap them so the parser sees one array.
+        byte[] data = new byte[length + 2];
+        data[0] = '[';
+        copy(range.start(), data, 1, length);
+        data[length + 1] = ']';
+        JsonParser parser = factory.createParser(data);
+        parser.nextToken();
+        return parser;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Mapped windows are released once unreachable; closing the channel does not invalidate them.
+        channel.close();
+    }
+
+    private List<Range> splitLines(long targetBytes) {
+        // A raw line feed cannot occur inside a JSON token, so any one is a record boundary.
+        List<Range> ranges = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + targetBytes >= size ? size : nextLineBreak(start + targetBytes - 1) + 1;
+            ranges.add(new Range(start, end));
+            start = end;
+        }
+        return ranges;
+    }
+
+    private long nextLineBreak(long from) {
+        for (long position = from; position < size; ) {
+            MappedByteBuffer window = windows[(int) (position / windowBytes)];
+            int limit = window.limit();
+            for (int i = (int) (position % windowBytes); i < limit; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i - position % windowBytes;
+                }
+            }
+            position += limit - position % windowBytes;
+        }
+        return size - 1;
+    }
+
+    private List<Range> splitArray(long targetBytes) throws IOException {
+        List<Range> ranges = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        boolean closed = false;
+        boolean content = false;
+        // Whether the current top-level element has started, and whether a comma came before it.
+        boolean element = false;
+        boolean separated = false;
+        long rangeStart = -1;
+        long position = 0;
+        for (MappedByteBuffer window : windows) {
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++, position++) {
+                byte b = window.get(i);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        inString = false;
+                    }
+                    continue;
+                }
+                if (closed) {
+                    if (!isWhitespace(b)) {
+                        throw new JsonParseException(null, "Unexpected content after payload array at byte " + position);
+                    }
+                    continue;
+                }
+                if (depth == 0) {
+                    if (b == '[') {
+                        depth = 1;
+                        rangeStart = position + 1;
+                    } else if (!isWhitespace(b)) {
+                        throw new JsonParseException(null, "Payload must be a JSON array of records");
+                    }
+                    continue;
+                }
+                if (!isWhitespace(b) && (b != ']' || depth > 1)) {
+                    content = true;
+                }
+                if (depth == 1 && b != ',' && b != ']' && !isWhitespace(b)) {
+                    element = true;
+                }
+                switch (b) {
+                    case '"' -> inString = true;
+                    case '{', '[' -> depth++;
+                    case '}' -> depth--;
+                    case ']' -> {
+                        if (--depth == 0) {
+                            if (separated && !element) {
+                                throw new JsonParseException(null, "Trailing comma in payload array at byte " + position);
+                            }
+                            if (content) {
+                                ranges.add(new Range(rangeStart, position));
+                            }
+                            closed = true;
+                        }
+                    }
+                    case ',' -> {
+                        if (depth == 1) {
+                            if (!element) {
+                                throw new JsonParseException(null, "Empty element in payload array at byte " + position);
+                            }
+                            element = false;
+                            separated = true;
+                        }
+                        if (depth == 1 && position - rangeStart >= targetBytes) {
+                            ranges.add(new Range(rangeStart, position));
+                            rangeStart = position + 1;
+                            content = false;
+                        }
+                    }
+                    default -> {
+                    }
+                }
+            }
+        }
+        if (depth != 0 || inString) {
+            throw new JsonParseException(null, "Payload array is not terminated");
+        }
+        return ranges;
+    }
+
+    private void copy(long position, byte[] target, int offset, int length) {
+        while (length > 0) {
+            MappedByteBuffer window = windows[(int) (position / windowBytes)];
+            int index = (int) (position % windowBytes);
+            int count = Math.min(length, window.limit() - index);
+            window.get(index, target, offset, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    public enum Layout {
+        /** One record per line. */
+        NDJSON,
+        /** A single top-level JSON array whose elements are the records. */
+        JSON_ARRAY
+    }
+
+    /**
+     * Byte range {@code [start, end)} of the file holding whole records.
+     */
+    public record Range(long start, long end) {
+        public long length() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package github.jackutil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+
+import github.jackutil.compiler.CompiledMapping;
+import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.ExecutionBackend;
+import github.jackutil.compiler.diagnostics.MappingException;
+import github.jackutil.compiler.runtime.MappingEngine;
+
+public class BytecodeBackendTest {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void selectsBackendAtCompileTime() throws Exception {
+        CompiledMapping interpreted = compile("valid/refs.json", ExecutionBackend.INTERPRETER);
+        CompiledMapping generated = compile("valid/refs.json", ExecutionBackend.BYTECODE);
+        assertEquals(ExecutionBackend.INTERPRETER, interpreted.backend());
+        assertNull(interpreted.bytecode());
+        assertEquals(ExecutionBackend.BYTECODE, generated.backend());
+        assertNotNull(generated.bytecode());
+        assertEquals(generated.program().program().blocks().size(), generated.bytecode().blockCount());
+    }
+
+    @Test
+    public void matchesInterpreterOutput() throws Exception {
+        assertSameOutput("valid/refs.json", Map.of(), Map.of("id", "ABC"));
+        assertSameOutput("valid/arrays.json", Map.of(), Map.of());
+        assertSameOutput("valid/constants.json", Map.of(), Map.of());
+        assertSameOutput("valid/inline.json", Map.of(), Map.of("id", "ABC", "code", "X1"));
+        assertSameOutput("valid/literal-pool.json", Map.of(), Map.of("id", "ABC"));
+        assertSameOutput("valid/inputs.json", Map.of("tenantId", "T-1"), Map.of());
+        assertSameOutput("valid/scalar-literals.json", Map.of(), Map.of("id", "ABC"));
+        assertSameOutput("valid/advanced-order.json",
+            readJsonMap("valid/advanced-order-input.json"),
+            readJsonMap("valid/advanced-order-payload.json"));
+    }
+
+    @Test
+    public void splitsLargeBlocksAcrossMethods() throws Exception {
+        StringBuilder map = new StringBuilder();
+        for (int i = 0; i < 1_500; i++) {
+            if (i > 0) {
+                map.append(',');
+            }
+            map.append("\"f").append(i).append("\":");
+            switch (i % 4) {
+                case 0 -> map.append("\"$VARIABLES.id\"");
+                case 1 -> map.append("\"text-").append(i).append('"');
+                case 2 -> map.append(i * 100_000L);
+                default -> map.append("{\"n\":").append(i).append(",\"tags\":[\"a\",\"b\"]}");
+            }
+        }
+        String config = """
+            {
+              "META": { "dslVersion": "v2", "name": "wide", "targetAspect": "urn:test:wide" },
+              "ENGINE": { "api": "v2", "output": "$MAPPINGS.root" },
+              "INPUT": {},
+              "SCHEMA": {},
+              "FUNCTIONS": {},
+              "VARIABLES": { "id": { "type": "string", "required": true } },
+              "MAPPINGS": { "root": { "REF": "root", "MAP": { %s } } },
+              "VALIDATION": {}
+            }
+            """.formatted(map);
+        byte[] bytes = config.getBytes(StandardCharsets.UTF_8);
+        MappingEngine interpreted = new MappingEngine(ConfigCompiler.compile(new ByteArrayInputStream(bytes)));
+        MappingEngine generated = new MappingEngine(
+            ConfigCompiler.compile(new ByteArrayInputStream(bytes), ExecutionBackend.BYTECODE));
+        Map<String, Object> payload = Map.of("id", "wide");
+        assertEquals(execute(interpreted, Map.of(), payload), execute(generated, Map.of(), payload));
+    }
+
+    @Test
+    public void propagatesResolverFailures() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json", ExecutionBackend.BYTECODE));
+        try {
+            execute(engine, Map.of(), Map.of("id", "lower"));
+            throw new AssertionError("Expected constraint failure");
+        } catch (MappingException expected) {
+            assertEquals("VARIABLE_CONSTRAINT", expected.diagnostic().code());
+        }
+    }
+
+    private void assertSameOutput(String resource,
+                                  Map<String, Object> inputs,
+                                  Map<String, Object> payload) throws Exception {
+        MappingEngine interpreted = new MappingEngine(compile(resource, ExecutionBackend.INTERPRETER));
+        MappingEngine generated = new MappingEngine(compile(resource, ExecutionBackend.BYTECODE));
+        assertEquals(resource, execute(interpreted, inputs, payload), execute(generated, inputs, payload));
+    }
+
+    private String execute(MappingEngine engine,
+                           Map<String, Object> inputs,
+                           Map<String, Object> payload) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            engine.execute("root", inputs, payload, generator);
+        }
+        return writer.toString();
+    }
+
+    private Map<String, Object> readJsonMap(String resource) throws Exception {
+        try (InputStream in = resource(resource)) {
+            return objectMapper.readValue(in, new TypeReference<Map<String, Object>>() { });
+        }
+    }
+
+    private CompiledMapping compile(String resource, ExecutionBackend backend) throws Exception {
+        try (InputStream in = resource(resource)) {
+            return ConfigCompiler.compile(in, backend);
+        }
+    }
+
+    private InputStream resource(String name) {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw MappingException.of("TEST_RESOURCE_MISSING", "Missing test resource: " + name, "/test");
+        }
+        return stream;
+    }
+}
@@ -1,5 +1,6 @@
 package github.jackutil;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
@@ -9,6 +10,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertSame;
 
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.List;
 import java.util.Map;
 
@@ -18,8 +21,12 @@ import github.jackutil.compiler.diagnostics.MappingException;
 
 import github.jackutil.compiler.CompiledMapping;
 import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.ir.ConstFragments;
+import github.jackutil.compiler.ir.EncodedFieldNames;
+import github.jackutil.compiler.ir.FunctionDef;
 import github.jackutil.compiler.ir.InstructionBlock;
 import github.jackutil.compiler.ir.InstructionProgram;
+import github.jackutil.compiler.ir.ScalarPools;
 import github.jackutil.compiler.ir.enums.OpCode;
 import github.jackutil.compiler.ir.resolved.ResolvedConfig;
 import github.jackutil.compiler.ir.resolved.ResolvedMapping;
@@ -120,9 +127,9 @@ public class ConfigCompilerTest {
             assertEquals(10, opcodes.length);
             assertEquals(OpCode.BEGIN_OBJECT, opcodes[0]);
             assertEquals(OpCode.WRITE_FIELD, opcodes[1]);
-            assertEquals(OpCode.WRITE_LITERAL, opcodes[2]);
+            assertEquals(OpCode.WRITE_CONST, opcodes[2]);
             assertEquals(OpCode.WRITE_FIELD, opcodes[3]);
-            assertEquals(OpCode.WRITE_LITERAL, opcodes[4]);
+            assertEquals(OpCode.WRITE_CONST, opcodes[4]);
             assertEquals(OpCode.WRITE_FIELD, opcodes[5]);
             assertEquals(OpCode.WRITE_MAPPING, opcodes[6]);
             assertEquals(OpCode.WRITE_FIELD, opcodes[7]);
@@ -134,13 +141,13 @@ public class ConfigCompilerTest {
             ResolvedMapping singleUse = mapping(config, "singleUse");
             InstructionBlock singleBlock = program.blocks().get(singleUse.id());
             assertEquals(1, singleBlock.opcodes().length);
-            assertEquals(OpCode.WRITE_LITERAL, singleBlock.opcodes()[0]);
+            assertEquals(OpCode.WRITE_CONST, singleBlock.opcodes()[0]);
             int singleLiteralIndex = singleBlock.operands()[0][0];
 
             ResolvedMapping sharedConst = mapping(config, "sharedConst");
             InstructionBlock sharedBlock = program.blocks().get(sharedConst.id());
             assertEquals(1, sharedBlock.opcodes().length);
-            assertEquals(OpCode.WRITE_LITERAL, sharedBlock.opcodes()[0]);
+            assertEquals(OpCode.WRITE_CONST, sharedBlock.opcodes()[0]);
             int sharedLiteralIndex = sharedBlock.operands()[0][0];
             assertNotEquals(singleLiteralIndex, sharedLiteralIndex);
 
@@ -148,6 +155,9 @@ public class ConfigCompilerTest {
             assertEquals(sharedConst.id(), operands[8][0]);
 
             assertEquals(2, program.literals().size());
+            ConstFragments fragments = program.constFragments();
+            assertEquals(program.literals().size(), fragments.size());
+            assertEquals(program.literals().get(sharedLiteralIndex), fragments.get(sharedLiteralIndex).value());
         }
     }
 
@@ -194,6 +204,22 @@ public class ConfigCompilerTest {
         }
     }
 
+    @Test
+    public void mergesDeriveArgumentsWithFunctionDefaults() throws Exception {
+        try (InputStream in = resource("valid/builtins.json")) {
+            ResolvedConfig config = ConfigCompiler.compile(in).config();
+
+            ResolvedVariable color = variable(config, "color");
+            assertEquals(List.of("B"), color.deriveArgs());
+            FunctionDef lookup = config.functions().get(color.deriveFunctionId());
+            assertArrayEquals(new Object[] {"B", Map.of("A", "Amber", "B", "Blue"), "Unknown"},
+                lookup.argumentVector(color.deriveArgs()));
+
+            ResolvedVariable generatedId = variable(config, "generatedId");
+            assertEquals(List.of(), generatedId.deriveArgs());
+        }
+    }
+
     @Test
     public void inlinesSingleUseMappings() throws Exception {
         try (InputStream in = resource("valid/inline.json")) {
@@ -235,6 +261,49 @@ public class ConfigCompilerTest {
         }
     }
 
+    @Test
+    public void emitsTypedOpcodesForScalarLiterals() throws Exception {
+        try (InputStream in = resource("valid/scalar-literals.json")) {
+            CompiledMapping mapping = ConfigCompiler.compile(in);
+            InstructionProgram program = mapping.program().program();
+            InstructionBlock block = program.blocks().get(mapping(mapping.config(), "root").id());
+            OpCode[] opcodes = block.opcodes();
+            int[][] operands = block.operands();
+            ScalarPools scalars = program.scalars();
+
+            assertEquals(OpCode.WRITE_STRING, opcodes[4]);
+            assertEquals(OpCode.WRITE_STRING, opcodes[6]);
+            assertEquals("batch", scalars.string(operands[4][0]));
+            assertEquals("string literals are pooled", operands[4][0], operands[6][0]);
+            assertEquals(OpCode.WRITE_LONG, opcodes[8]);
+            assertEquals(3L, scalars.longValue(operands[8][0]));
+            assertEquals(OpCode.WRITE_LONG, opcodes[10]);
+            assertEquals(9007199254740993L, scalars.longValue(operands[10][0]));
+            assertEquals(OpCode.WRITE_DECIMAL, opcodes[12]);
+            assertEquals(new BigDecimal("0.25"), scalars.decimal(operands[12][0]));
+            assertEquals(OpCode.WRITE_BOOL, opcodes[14]);
+            assertEquals(1, operands[14][0]);
+            assertEquals(OpCode.WRITE_BOOL, opcodes[16]);
+            assertEquals(0, operands[16][0]);
+            assertEquals(OpCode.WRITE_NULL, opcodes[18]);
+            assertEquals("big integers stay on the generic path", OpCode.WRITE_LITERAL, opcodes[20]);
+            assertEquals(List.of(new BigInteger("123456789012345678901234567890")), program.literals());
+        }
+    }
+
+    @Test
+    public void preEncodesFieldNamesInParallelTable() throws Exception {
+        try (InputStream in = resource("valid/inline.json")) {
+            InstructionProgram program = ConfigCompiler.compile(in).program().program();
+            EncodedFieldNames encoded = program.encodedFieldNames();
+            assertEquals(program.fieldNames(), encoded.names());
+            for (int i = 0; i < encoded.size(); i++) {
+                assertEquals(program.fieldNames().get(i), encoded.get(i).getValue());
+            }
+            assertEquals(EncodedFieldNames.of(program.fieldNames()), encoded);
+        }
+    }
+
     private Map<?, ?> castToMap(Object value) {
         if (!(value instanceof Map<?, ?> map)) {
             throw new AssertionError("Expected map literal but got: " + value);
@@ -1,9 +1,16 @@
 package github.jackutil;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -11,6 +18,8 @@ import org.junit.Test;
 
 import github.jackutil.EngineBinding.ValidationMode;
 import github.jackutil.compiler.diagnostics.MappingException;
+import github.jackutil.compiler.runtime.BatchFormat;
+import github.jackutil.compiler.runtime.BatchResult;
 
 public class EngineBindingTest {
 
@@ -61,6 +70,115 @@ public class EngineBindingTest {
         }
     }
 
+    @Test
+    public void streamsValidatedOutputToStream() throws Exception {
+        try (InputStream stream = resource("valid/result-validation.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            binding.executeTo("root", Map.of(), Map.of("value", "VALID"), out);
+            assertEquals("{\"value\":\"VALID\"}", out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void writesNothingWhenStreamedResultViolatesSchema() throws Exception {
+        try (InputStream stream = resource("valid/result-validation.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertThrows(MappingException.class, () -> binding.executeTo("root", Map.of(), Map.of("value", "invalid"), out));
+            assertEquals(0, out.size());
+        }
+    }
+
+    @Test
+    public void streamsValidatedOutputToChannel() throws Exception {
+        try (InputStream stream = resource("valid/result-validation.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            binding.executeTo("root", Map.of(), Map.of("value", "VALID"), Channels.newChannel(out));
+            assertEquals("{\"value\":\"VALID\"}", out.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void streamsOutputIntoByteBuffer() throws Exception {
+        try (InputStream stream = resource("valid/result-validation.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            ByteBuffer buffer = ByteBuffer.allocate(64);
+            int written = binding.executeTo("root", Map.of(), Map.of("value", "invalid"), buffer, ValidationMode.DISABLED);
+            assertEquals(buffer.position(), written);
+            buffer.flip();
+            assertEquals("{\"value\":\"invalid\"}", StandardCharsets.UTF_8.decode(buffer).toString());
+        }
+    }
+
+    @Test
+    public void reportsSchemaFailuresPerBatchRecord() throws Exception {
+        try (InputStream stream = resource("valid/result-validation.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BatchResult result = binding.executeBatch("root", Map.of(),
+                List.of(Map.of("value", "invalid"), Map.of("value", "VALID")), out, BatchFormat.NDJSON,
+                ValidationMode.ENABLED);
+            assertEquals("{\"value\":\"VALID\"}\n", out.toString(StandardCharsets.UTF_8));
+            assertEquals(1, result.failures().size());
+            assertEquals(0, result.failures().get(0).index());
+            assertEquals("RESULT_SCHEMA_VALIDATION", result.failures().get(0).diagnostic().code());
+        }
+    }
+
+    @Test
+    public void rejectsUnknownMappingBeforeValidatedBatch() throws Exception {
+        try (InputStream stream = resource("valid/result-validation.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            MappingException ex = assertThrows(MappingException.class, () -> binding.executeBatch("missing", Map.of(),
+                List.of(Map.of("value", "VALID")), out, BatchFormat.NDJSON, ValidationMode.ENABLED));
+            assertEquals("MAPPING_UNKNOWN", ex.diagnostic().code());
+            assertEquals(0, out.size());
+        }
+    }
+
+    @Test
+    public void resolvesUnreferencedVariablesOnlyWhenSnapshotIsRead() throws Exception {
+        try (InputStream stream = resource("valid/lazy-variables.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            EngineBinding.ExecutionResult result = binding.execute("root", Map.of(), Map.of("value", "A"));
+            assertEquals("A", result.output().get("value"));
+            assertThrows(MappingException.class, result::variablesJson);
+        }
+    }
+
+    @Test
+    public void variablesSnapshotSurvivesLaterExecutions() throws Exception {
+        try (InputStream stream = resource("valid/lazy-variables.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            EngineBinding.ExecutionResult first = binding.execute("root", Map.of(), Map.of("value", "A", "audit", "first"));
+            EngineBinding.ExecutionResult second = binding.execute("root", Map.of(), Map.of("value", "B", "audit", "second"));
+            assertEquals("{\"value\":\"A\",\"audit\":\"first\"}", first.variablesJson());
+            assertEquals("{\"value\":\"B\",\"audit\":\"second\"}", second.variablesJson());
+        }
+    }
+
+    @Test
+    public void executionResultsCompareWithoutResolvingVariables() throws Exception {
+        try (InputStream stream = resource("valid/lazy-variables.json")) {
+            EngineBinding binding = EngineBinding.fromStream(stream);
+            EngineBinding.ExecutionResult result = binding.execute("root", Map.of(), Map.of("value", "A"));
+            EngineBinding.ExecutionResult eager = new EngineBinding.ExecutionResult(
+                binding.compiled(), Map.of("value", "A"), "{\"value\":\"A\"}");
+            EngineBinding.ExecutionResult sameEager = new EngineBinding.ExecutionResult(
+                binding.compiled(), Map.of("value", "A"), "{\"value\":\"A\"}");
+            assertEquals(result, result);
+            assertEquals(result.hashCode(), result.hashCode());
+            assertNotEquals(eager, result);
+            assertTrue(result.toString().contains("VariablesJson[unresolved]"));
+            assertEquals(eager, sameEager);
+            assertEquals(eager.hashCode(), sameEager.hashCode());
+            assertThrows(MappingException.class, result::variablesJson);
+        }
+    }
+
     private InputStream resource(String name) {
         InputStream stream = getClass().getClassLoader().getResourceAsStream(name);
         if (stream == null) {
@@ -0,0 +1,189 @@
+package github.jackutil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import github.jackutil.compiler.diagnostics.MappingException;
+
+public class EngineCLITest {
+
+    private static final int RECORDS = 60_000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    public void writesMappedPayloadToOutputFile() throws Exception {
+        Path output = folder.getRoot().toPath().resolve("out/result.json");
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root",
+            "--payload", file("payload.json", "{\"id\":\"ABC\",\"ignored\":[1,2]}"), "--output", output.toString());
+        assertEquals(0, status);
+        assertEquals("{\"id\":\"ABC\"}", Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void keepsExistingOutputFileWhenPayloadIsInvalid() throws Exception {
+        Path output = Path.of(file("result.json", "{\"id\":\"PREVIOUS\"}"));
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root",
+            "--payload", file("payload.json", "{\"id\":"), "--output", output.toString());
+        assertEquals(65, status);
+        assertTrue(err(), err().startsWith("Payload invalid: "));
+        assertEquals("{\"id\":\"PREVIOUS\"}", Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void keepsExistingOutputFileWhenMappingFails() throws Exception {
+        Path output = Path.of(file("result.json", "{\"id\":\"PREVIOUS\"}"));
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root",
+            "--payload", file("payload.json", "{\"id\":\"lower\"}"), "--output", output.toString());
+        assertEquals(70, status);
+        assertTrue(err(), err().startsWith("Mapping failed [VARIABLE_CONSTRAINT]"));
+        assertEquals("{\"id\":\"PREVIOUS\"}", Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void truncatesExistingOutputFileWhenNothingIsWritten() throws Exception {
+        Path output = Path.of(file("result.json", "{\"id\":\"PREVIOUS\"}"));
+        new EngineCLI.DeferredFileOutput(output).close();
+        assertEquals("", Files.readString(output, StandardCharsets.UTF_8));
+
+        Files.writeString(output, "{\"id\":\"PREVIOUS\"}", StandardCharsets.UTF_8);
+        EngineCLI.DeferredFileOutput discarded = new EngineCLI.DeferredFileOutput(output);
+        discarded.discard();
+        discarded.close();
+        assertEquals("{\"id\":\"PREVIOUS\"}", Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void mapsEveryNdjsonRecord() throws Exception {
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root", "--payload-format", "ndjson",
+            "--payload", file("records.ndjson", "{\"id\":\"A\"}\n\n{\"id\":\"B\",\"skip\":{\"x\":1}}\n{\"id\":\"C\"}"));
+        assertEquals(err(), 0, status);
+        assertEquals("{\"id\":\"A\"}\n{\"id\":\"B\"}\n{\"id\":\"C\"}\n", out());
+    }
+
+    @Test
+    public void mapsEveryArrayElement() throws Exception {
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root", "--payload-format", "array",
+            "--payload", file("records.json", "[\n  {\"id\":\"A\"},\n  {\"id\":\"B\"}\n]\n"));
+        assertEquals(err(), 0, status);
+        assertEquals("{\"id\":\"A\"}\n{\"id\":\"B\"}\n", out());
+    }
+
+    @Test
+    public void reportsFailedRecordsAndWritesTheRest() throws Exception {
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root", "--payload-format", "ndjson",
+            "--payload", file("records.ndjson", "{\"id\":\"A\"}\n{\"id\":\"lower\"}\n{\"id\":\"C\"}\n"));
+        assertEquals(70, status);
+        assertEquals("{\"id\":\"A\"}\n{\"id\":\"C\"}\n", out());
+        assertTrue(err(), err().startsWith("Record 1 failed [VARIABLE_CONSTRAINT]: "));
+    }
+
+    @Test
+    public void keepsInputOrderAcrossThreads() throws Exception {
+        Path output = folder.getRoot().toPath().resolve("result.ndjson");
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root", "--payload-format", "ndjson",
+            "--payload", file("records.ndjson", records()), "--threads", "4", "--output", output.toString());
+        assertEquals(err(), 0, status);
+        assertEquals(expectedOutput(), Files.readString(output, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writesEveryRecordWhenUnordered() throws Exception {
+        Path output = folder.getRoot().toPath().resolve("result.ndjson");
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root", "--payload-format", "ndjson",
+            "--payload", file("records.ndjson", records()), "--threads", "4", "--unordered",
+            "--output", output.toString());
+        assertEquals(err(), 0, status);
+        String[] actual = Files.readString(output, StandardCharsets.UTF_8).split("\n");
+        String[] expected = expectedOutput().split("\n");
+        Arrays.sort(actual);
+        Arrays.sort(expected);
+        assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+    }
+
+    @Test
+    public void rejectsUnorderedWithoutThreads() throws Exception {
+        int status = run("--config", config("valid/refs.json"), "--mapping", "root", "--payload-format", "ndjson",
+            "--payload", file("records.ndjson", "{\"id\":\"A\"}\n"), "--unordered");
+        assertEquals(64, status);
+        assertTrue(err(), err().contains("--unordered requires --threads greater than 1"));
+        assertEquals("", out());
+    }
+
+    private static String records() {
+        // Padded past several pipeline chunks so the workers really run concurrently.
+        String padding = "x".repeat(48);
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            lines.append("{\"pad\":\"").append(padding).append("\",\"id\":\"").append(id(i)).append("\"}\n");
+        }
+        return lines.toString();
+    }
+
+    private static String expectedOutput() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            lines.append("{\"id\":\"").append(id(i)).append("\"}\n");
+        }
+        return lines.toString();
+    }
+
+    private static String id(int index) {
+        StringBuilder id = new StringBuilder();
+        int value = index;
+        do {
+            id.append((char) ('A' + value % 26));
+            value /= 26;
+        } while (value > 0);
+        return id.toString();
+    }
+
+    private int run(String... args) {
+        return new EngineCLI().run(args, new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8));
+    }
+
+    private String out() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private String err() {
+        return err.toString(StandardCharsets.UTF_8);
+    }
+
+    private String config(String name) throws Exception {
+        try (InputStream in = resource(name)) {
+            return file("config.json", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private String file(String name, String content) throws Exception {
+        Path path = folder.getRoot().toPath().resolve(name);
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return path.toString();
+    }
+
+    private InputStream resource(String name) {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw MappingException.of("TEST_RESOURCE_MISSING", "Missing test resource: " + name, "/test");
+        }
+        return stream;
+    }
+}
@@ -0,0 +1,146 @@
+package github.jackutil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import org.junit.Test;
+
+import github.jackutil.compiler.CompiledMapping;
+import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.diagnostics.MappingException;
+import github.jackutil.compiler.runtime.MappingEngine;
+
+public class MappingEngineConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 2_000;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    public void sharedEngineKeepsPayloadsIsolatedAcrossThreads() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        runConcurrently(worker -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                String id = letters(worker) + letters(i);
+                StringWriter writer = new StringWriter();
+                Supplier<Map<String, Object>> variables;
+                try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+                    variables = engine.executeRetainingVariables("root", Map.of(), Map.of("id", id), generator);
+                }
+                assertEquals("{\"id\":\"" + id + "\"}", writer.toString());
+                assertEquals(id, variables.get().get("id"));
+            }
+        });
+    }
+
+    @Test
+    public void sharedEngineKeepsInputsIsolatedAcrossThreads() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/inputs.json"));
+        runConcurrently(worker -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                String tenant = "TENANT-" + worker + "-" + i;
+                String output = execute(engine, "root", Map.of("tenantId", tenant), Map.of());
+                assertEquals("{\"tenant\":\"" + tenant + "\",\"batchDate\":\"2024-05-01\"}", output);
+            }
+        });
+    }
+
+    @Test
+    public void failuresOnOneThreadDoNotLeakIntoOthers() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        runConcurrently(worker -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                if (worker % 2 == 0) {
+                    String id = letters(worker) + letters(i);
+                    assertEquals("{\"id\":\"" + id + "\"}", execute(engine, "root", Map.of(), Map.of("id", id)));
+                } else {
+                    try {
+                        execute(engine, "root", Map.of(), Map.of("id", "lower" + i));
+                        throw new AssertionError("Expected constraint failure");
+                    } catch (MappingException expected) {
+                        assertEquals("VARIABLE_CONSTRAINT", expected.diagnostic().code());
+                    }
+                }
+            }
+        });
+    }
+
+    private void runConcurrently(Worker worker) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                int workerId = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    worker.run(workerId);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+            assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private String execute(MappingEngine engine,
+                           String mapping,
+                           Map<String, Object> inputs,
+                           Map<String, Object> payload) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            engine.execute(mapping, inputs, payload, generator);
+        }
+        return writer.toString();
+    }
+
+    private static String letters(int value) {
+        StringBuilder builder = new StringBuilder();
+        int remaining = value;
+        do {
+            builder.append((char) ('A' + remaining % 26));
+            remaining /= 26;
+        } while (remaining > 0);
+        return builder.toString();
+    }
+
+    private CompiledMapping compile(String resource) throws Exception {
+        try (InputStream in = resource(resource)) {
+            return ConfigCompiler.compile(in);
+        }
+    }
+
+    private InputStream resource(String name) {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw MappingException.of("TEST_RESOURCE_MISSING", "Missing test resource: " + name, "/test");
+        }
+        return stream;
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int workerId) throws Exception;
+    }
+}
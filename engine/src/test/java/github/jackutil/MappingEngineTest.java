@@ -4,16 +4,28 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 import org.junit.Test;
 
@@ -21,7 +33,11 @@ import github.jackutil.compiler.diagnostics.MappingException;
 
 import github.jackutil.compiler.CompiledMapping;
 import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.runtime.BatchFormat;
+import github.jackutil.compiler.runtime.BatchResult;
 import github.jackutil.compiler.runtime.MappingEngine;
+import github.jackutil.compiler.runtime.OutputFormat;
+import github.jackutil.compiler.runtime.UuidSource;
 
 public class MappingEngineTest {
 
@@ -52,6 +68,16 @@ public class MappingEngineTest {
         assertEquals(6, node.get("sum").asInt());
     }
 
+    @Test
+    public void dateBuiltinsReadTheEngineClock() throws Exception {
+        Clock clock = Clock.fixed(Instant.parse("2024-05-01T10:15:30.250Z"), ZoneOffset.UTC);
+        MappingEngine engine = new MappingEngine(compile("valid/dates.json"), UuidSource.SECURE, clock);
+        JsonNode node = executeToJson(engine, "root", Map.of());
+        assertEquals("2024-05-01T10:15:30.250Z", node.get("createdAt").asText());
+        assertEquals("2024-05-01", node.get("createdDay").asText());
+        assertEquals(clock.millis(), node.get("createdMillis").asLong());
+    }
+
     @Test
     public void executesArrayMapping() throws Exception {
         CompiledMapping compiled = compile("valid/arrays.json");
@@ -73,6 +99,41 @@ public class MappingEngineTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void bindsPayloadStreamedFromBytes() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/advanced-order.json"));
+        Map<String, Object> inputs = readJsonMap("valid/advanced-order-input.json");
+        byte[] payload;
+        try (InputStream in = resource("valid/advanced-order-payload.json")) {
+            String document = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            // Fields no variable names are skipped, however deep they nest.
+            payload = document.replaceFirst("\\{", "{\"audit\":{\"trail\":[[1,{\"orderId\":\"X\"}],null]},")
+                .getBytes(StandardCharsets.UTF_8);
+        }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            engine.execute("root", inputs, payload, generator);
+        }
+        assertEquals(readJsonNode("valid/advanced-order-expected.json"), objectMapper.readTree(writer.toString()));
+    }
+
+    @Test
+    public void executesBatchFromParser() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        byte[] records = "[{\"id\":\"ABC\",\"extra\":[1,2]},{\"id\":\"lower\"},null,{\"id\":\"XYZ\"}]"
+            .getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        BatchResult result;
+        try (JsonParser parser = jsonFactory.createParser(records)) {
+            parser.nextToken();
+            result = engine.executeBatch("root", Map.of(), parser, sink, BatchFormat.NDJSON, OutputFormat.JSON);
+        }
+        assertEquals(4, result.records());
+        assertEquals(List.of(1, 2), result.failures().stream().map(BatchResult.RecordFailure::index).toList());
+        assertEquals("VARIABLE_REQUIRED", result.failures().get(1).diagnostic().code());
+        assertEquals("{\"id\":\"ABC\"}\n{\"id\":\"XYZ\"}\n", sink.toString(StandardCharsets.UTF_8));
+    }
+
     @Test
     public void throwsWhenRequiredVariableMissing() throws Exception {
         CompiledMapping compiled = compile("valid/refs.json");
@@ -109,6 +170,20 @@ public class MappingEngineTest {
         }
     }
 
+    @Test
+    public void clearsVariablesWhenExecutionEnds() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        executeToJson(engine, "root", Map.of("id", "ABC"));
+        assertThrows(IllegalStateException.class, engine::variablesSnapshot);
+        Supplier<Map<String, Object>> variables;
+        try (JsonGenerator generator = jsonFactory.createGenerator(new StringWriter())) {
+            variables = engine.executeRetainingVariables("root", Map.of(), Map.of("id", "DEF"), generator);
+        }
+        assertThrows(MappingException.class, () -> executeToJson(engine, "root", Map.of("id", "lower")));
+        assertEquals("GHI", executeToJson(engine, "root", Map.of("id", "GHI")).get("id").asText());
+        assertEquals("DEF", variables.get().get("id"));
+    }
+
     @Test
     public void injectsInputValues() throws Exception {
         CompiledMapping compiled = compile("valid/inputs.json");
@@ -126,6 +201,158 @@ public class MappingEngineTest {
             assertThrows(MappingException.class, () -> engine.execute("root", Map.of(), Map.of(), generator));
         }
     }
+
+    @Test
+    public void writesTypedScalarLiterals() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/scalar-literals.json"));
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            engine.execute("root", Map.of(), Map.of("id", "ABC"), generator);
+        }
+        assertEquals("{\"id\":\"ABC\",\"kind\":\"batch\",\"alias\":\"batch\",\"count\":3,"
+            + "\"serial\":9007199254740993,\"ratio\":0.25,\"active\":true,\"archived\":false,\"note\":null,"
+            + "\"huge\":123456789012345678901234567890}", writer.toString());
+    }
+
+    @Test
+    public void writesConstantsAsCompactRawText() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/constants.json"));
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            engine.execute("root", Map.of(), Map.of(), generator);
+        }
+        assertEquals(objectMapper.writeValueAsString(executeStructurally(engine)), writer.toString());
+    }
+
+    @Test
+    public void writesConstantsWithDefaultPrettyLayout() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/constants.json"));
+        JsonNode expected = executeStructurally(engine);
+        assertEquals(objectMapper.writer(new DefaultPrettyPrinter()).writeValueAsString(expected),
+            executePretty(engine, new DefaultPrettyPrinter()));
+        DefaultPrettyPrinter custom = new DefaultPrettyPrinter().withoutSpacesInObjectEntries();
+        assertEquals(objectMapper.writer(custom).writeValueAsString(expected), executePretty(engine, custom));
+        // Arrays do not indent under the default printer, so constants inside them follow their enclosing object.
+        MappingEngine nested = new MappingEngine(compile("valid/constants-in-arrays.json"));
+        assertEquals(objectMapper.writer(new DefaultPrettyPrinter()).writeValueAsString(executeStructurally(nested)),
+            executePretty(nested, new DefaultPrettyPrinter()));
+    }
+
+    @Test
+    public void executesBatchAsJsonArrayAndSkipsFailedRecords() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        BatchResult result = engine.executeBatch("root", Map.of(),
+            List.of(Map.of("id", "ABC"), Map.of("id", "lower"), Map.of("id", "XYZ")), sink, BatchFormat.JSON_ARRAY);
+        assertEquals("[{\"id\":\"ABC\"},{\"id\":\"XYZ\"}]", sink.toString(StandardCharsets.UTF_8));
+        assertEquals(3, result.records());
+        assertEquals(2, result.written());
+        assertEquals(1, result.failures().size());
+        assertEquals(1, result.failures().get(0).index());
+        assertEquals("VARIABLE_CONSTRAINT", result.failures().get(0).diagnostic().code());
+    }
+
+    @Test
+    public void executesBatchAsNewlineDelimitedRecords() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/constants.json"));
+        String single = objectMapper.writeValueAsString(executeStructurally(engine));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        BatchResult result = engine.executeBatch("root", Map.of(),
+            List.of(Map.of(), Map.of()), sink, BatchFormat.NDJSON);
+        assertTrue(result.succeeded());
+        assertEquals(single + "\n" + single + "\n", sink.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void writesBatchRecordsThroughHook() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        BatchResult result = engine.executeBatch("root", Map.of(),
+            List.of(Map.of("id", "ABC"), Map.of("id", "DEF"), Map.of("id", "GHI")), sink, BatchFormat.NDJSON,
+            OutputFormat.JSON, (generator, record) -> {
+                TokenBuffer tokens = new TokenBuffer(objectMapper, false);
+                record.writeTo(tokens);
+                JsonNode node = objectMapper.readTree(tokens.asParser());
+                if ("DEF".equals(node.get("id").asText())) {
+                    throw MappingException.of("TEST_REJECTED", "Rejected by hook", "/id");
+                }
+                tokens.serialize(generator);
+            });
+        assertEquals("{\"id\":\"ABC\"}\n{\"id\":\"GHI\"}\n", sink.toString(StandardCharsets.UTF_8));
+        assertEquals(1, result.failures().size());
+        assertEquals(1, result.failures().get(0).index());
+        assertEquals("TEST_REJECTED", result.failures().get(0).diagnostic().code());
+    }
+
+    @Test
+    public void executesEmptyBatch() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        BatchResult result = engine.executeBatch("root", List.of(), sink);
+        assertEquals("[]", sink.toString(StandardCharsets.UTF_8));
+        assertEquals(0, result.records());
+    }
+
+    @Test
+    public void writesBinaryOutputFormats() throws Exception {
+        for (String resource : List.of("valid/constants.json", "valid/scalar-literals.json", "valid/arrays.json")) {
+            MappingEngine engine = new MappingEngine(compile(resource));
+            Map<String, Object> payload = Map.of("id", "ABC");
+            JsonNode expected = executeToJson(engine, "root", payload);
+            for (OutputFormat format : List.of(OutputFormat.SMILE, OutputFormat.CBOR)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                engine.execute("root", Map.of(), payload, out, format);
+                // Binary formats keep big-number types that JSON text does not, so compare the rendered values.
+                assertEquals(resource + " " + format, expected.toString(),
+                    new ObjectMapper(format.factory()).readTree(out.toByteArray()).toString());
+            }
+        }
+    }
+
+    @Test
+    public void executesBinaryBatchAsValueSequence() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        for (OutputFormat format : List.of(OutputFormat.SMILE, OutputFormat.CBOR)) {
+            ByteArrayOutputStream sink = new ByteArrayOutputStream();
+            BatchResult result = engine.executeBatch("root", Map.of(),
+                List.of(Map.of("id", "ABC"), Map.of("id", "lower"), Map.of("id", "ABC"), Map.of("id", "XYZ")),
+                sink, BatchFormat.SEQUENCE, format);
+            assertEquals(1, result.failures().size());
+            List<String> ids = new ArrayList<>();
+            try (MappingIterator<JsonNode> values = new ObjectMapper(format.factory())
+                    .readerFor(JsonNode.class).readValues(sink.toByteArray())) {
+                while (values.hasNext()) {
+                    ids.add(values.next().get("id").asText());
+                }
+            }
+            assertEquals(format.name(), List.of("ABC", "ABC", "XYZ"), ids);
+        }
+    }
+
+    @Test
+    public void rejectsTextFramingForBinaryFormats() throws Exception {
+        MappingEngine engine = new MappingEngine(compile("valid/refs.json"));
+        assertThrows(IllegalArgumentException.class, () -> engine.executeBatch("root", Map.of(),
+            List.of(Map.of("id", "ABC")), new ByteArrayOutputStream(), BatchFormat.NDJSON, OutputFormat.SMILE));
+    }
+
+    private JsonNode executeStructurally(MappingEngine engine) throws Exception {
+        // Token buffers cannot take raw text, so this drives the structural fallback.
+        try (TokenBuffer buffer = new TokenBuffer(objectMapper, false)) {
+            engine.execute("root", Map.of(), Map.of(), buffer);
+            return objectMapper.readTree(buffer.asParser());
+        }
+    }
+
+    private String executePretty(MappingEngine engine, DefaultPrettyPrinter printer) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            generator.setPrettyPrinter(printer);
+            engine.execute("root", Map.of(), Map.of(), generator);
+        }
+        return writer.toString();
+    }
+
     private JsonNode executeToJson(MappingEngine engine, String mapping, Map<String, Object> inputs, Map<String, Object> payload) throws Exception {
         StringWriter writer = new StringWriter();
         try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
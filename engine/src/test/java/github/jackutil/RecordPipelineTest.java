@@ -0,0 +1,166 @@
+package github.jackutil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.diagnostics.MappingException;
+import github.jackutil.compiler.runtime.BatchResult;
+import github.jackutil.compiler.runtime.MappingEngine;
+import github.jackutil.compiler.runtime.OutputFormat;
+import github.jackutil.io.MappedPayloadFile;
+
+public class RecordPipelineTest {
+
+    private static final int RECORDS = 2_000;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void preservesInputOrderAcrossChunks() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        BatchResult result = run(pipeline(true), source(), sink);
+        assertEquals(expectedOutput(), sink.toString(StandardCharsets.UTF_8));
+        assertEquals(RECORDS, result.records());
+        assertEquals(RECORDS - RECORDS / 100, result.written());
+    }
+
+    @Test
+    public void reportsFailuresByPositionInSource() throws Exception {
+        BatchResult result = run(pipeline(false), source(), new ByteArrayOutputStream());
+        assertEquals(RECORDS / 100, result.failures().size());
+        for (int i = 0; i < result.failures().size(); i++) {
+            assertEquals(i * 100 + 7, result.failures().get(i).index());
+            assertEquals("VARIABLE_CONSTRAINT", result.failures().get(i).diagnostic().code());
+        }
+    }
+
+    @Test
+    public void writesEveryRecordWhenUnordered() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        run(pipeline(false), source(), sink);
+        String[] actual = sink.toString(StandardCharsets.UTF_8).split("\n");
+        String[] expected = expectedOutput().split("\n");
+        Arrays.sort(actual);
+        Arrays.sort(expected);
+        assertEquals(Arrays.asList(expected), Arrays.asList(actual));
+    }
+
+    @Test
+    public void mapsMemoryMappedArrayPayload() throws Exception {
+        Path path = folder.newFile().toPath();
+        Files.writeString(path, "[" + source().strip().replace("\n", ",\n") + "]", StandardCharsets.UTF_8);
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        try (MappedPayloadFile file = MappedPayloadFile.open(path, MappedPayloadFile.Layout.JSON_ARRAY, 1_024)) {
+            BatchResult result = pipeline(true).run(file, sink);
+            assertEquals(RECORDS, result.records());
+            assertEquals(107, result.failures().get(1).index());
+        }
+        assertEquals(expectedOutput(), sink.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void concatenatesSmileChunksIntoOneValueSequence() throws Exception {
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        run(pipeline(true, OutputFormat.SMILE), source(), sink);
+        StringBuilder lines = new StringBuilder();
+        ObjectMapper smile = new ObjectMapper(OutputFormat.SMILE.factory());
+        try (MappingIterator<JsonNode> values = smile.readerFor(JsonNode.class).readValues(sink.toByteArray())) {
+            while (values.hasNext()) {
+                lines.append(values.next()).append('\n');
+            }
+        }
+        assertEquals(expectedOutput(), lines.toString());
+    }
+
+    @Test
+    public void failsOnMalformedRecord() throws Exception {
+        String input = "{\"id\":\"ABC\"}\n{\"id\":\n";
+        assertThrows(UncheckedIOException.class, () -> run(pipeline(true), input, new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Runs {@code pipeline} over {@code lines} written to a temporary NDJSON file. A small window makes records
+     * straddle mapping windows.
+     */
+    private BatchResult run(RecordPipeline pipeline, String lines, OutputStream sink) throws Exception {
+        Path path = folder.newFile().toPath();
+        Files.writeString(path, lines, StandardCharsets.UTF_8);
+        try (MappedPayloadFile file = MappedPayloadFile.open(path, MappedPayloadFile.Layout.NDJSON, 1_024)) {
+            return pipeline.run(file, sink);
+        }
+    }
+
+    private RecordPipeline pipeline(boolean ordered) throws Exception {
+        return pipeline(ordered, OutputFormat.JSON);
+    }
+
+    private RecordPipeline pipeline(boolean ordered, OutputFormat output) throws Exception {
+        try (InputStream in = resource("valid/refs.json")) {
+            MappingEngine engine = new MappingEngine(ConfigCompiler.compile(in));
+            // Small chunks so the records spread over many chunks and workers.
+            return new RecordPipeline(engine, "root", Map.of(), 4, ordered, 256, output);
+        }
+    }
+
+    private static String source() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            lines.append("{\"id\":\"").append(id(i)).append("\"}\n");
+        }
+        return lines.toString();
+    }
+
+    private static String expectedOutput() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            if (i % 100 != 7) {
+                lines.append("{\"id\":\"").append(id(i)).append("\"}\n");
+            }
+        }
+        return lines.toString();
+    }
+
+    private static String id(int index) {
+        // Every hundredth record breaks the upper-case constraint on id.
+        if (index % 100 == 7) {
+            return "lower";
+        }
+        StringBuilder id = new StringBuilder();
+        int value = index;
+        do {
+            id.append((char) ('A' + value % 26));
+            value /= 26;
+        } while (value > 0);
+        return id.toString();
+    }
+
+    private InputStream resource(String name) {
+        InputStream stream = getClass().getClassLoader().getResourceAsStream(name);
+        if (stream == null) {
+            throw MappingException.of("TEST_RESOURCE_MISSING", "Missing test resource: " + name, "/test");
+        }
+        return stream;
+    }
+}
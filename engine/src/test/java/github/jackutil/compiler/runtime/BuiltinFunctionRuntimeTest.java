@@ -1,9 +1,15 @@
 package github.jackutil.compiler.runtime;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -18,57 +24,208 @@ public class BuiltinFunctionRuntimeTest {
     @Test
     public void generatesUuid() {
         BuiltinFunctionRuntime runtime = runtime("uuid");
-        Object value = runtime.derive(List.of());
+        Object value = runtime.derive(new Object[0]);
         assertTrue(value instanceof String);
         assertTrue(Pattern.compile("^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$").matcher((String) value).matches());
     }
 
+    @Test
+    public void everyUuidSourceFormatsAllLayouts() {
+        Pattern canonical = Pattern.compile("^[0-9a-f]{8}-[0-9a-f]{4}-[47][0-9a-f]{3}-[89ab][0-9a-f]{3}-[0-9a-f]{12}$");
+        for (UuidSource source : UuidSource.values()) {
+            String uuid = (String) runtime("uuid", source).derive(new Object[0]);
+            assertTrue(source + ": " + uuid, canonical.matcher(uuid).matches());
+            assertEquals(uuid, java.util.UUID.fromString(uuid).toString());
+
+            String compact = (String) runtime("uuid_compact", source).derive(new Object[0]);
+            assertTrue(compact, compact.matches("^[0-9a-f]{32}$"));
+            String urn = (String) runtime("uuid_urn", source).derive(new Object[0]);
+            assertTrue(urn, urn.startsWith("urn:uuid:") && canonical.matcher(urn.substring(9)).matches());
+        }
+    }
+
+    @Test
+    public void formatsUuidBitsLikeJavaUtilUuid() {
+        java.util.UUID uuid = java.util.UUID.fromString("123e4567-e89b-12d3-a456-426614174000");
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        assertEquals(uuid.toString(), UuidSource.format(msb, lsb, UuidSource.CANONICAL));
+        assertEquals("123e4567e89b12d3a456426614174000", UuidSource.format(msb, lsb, UuidSource.COMPACT));
+        assertEquals("urn:uuid:" + uuid, UuidSource.format(msb, lsb, UuidSource.URN));
+    }
+
+    @Test
+    public void timeOrderedUuidsCarryTheRuntimeClock() {
+        Clock clock = Clock.fixed(Instant.parse("2024-05-01T10:15:30.123Z"), ZoneOffset.UTC);
+        BuiltinFunctionRuntime runtime = runtime("uuid", UuidSource.TIME_ORDERED, clock);
+        java.util.UUID uuid = java.util.UUID.fromString((String) runtime.derive(new Object[0]));
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertEquals(clock.millis(), uuid.getMostSignificantBits() >>> 16);
+        String urn = (String) runtime("uuid_urn", UuidSource.TIME_ORDERED, clock).derive(new Object[0]);
+        assertEquals(clock.millis(), java.util.UUID.fromString(urn.substring(9)).getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    public void dateReformatsOnlyWhenThePatternUnitChanges() {
+        SteppingClock clock = new SteppingClock(Instant.parse("2024-05-01T10:15:30Z"));
+        BuiltinFunctionRuntime runtime = runtime("date", clock);
+        Object first = runtime.derive(new Object[0]);
+        assertEquals("2024-05-01T10:15:30Z", first);
+        clock.advance(999);
+        assertSame(first, runtime.derive(new Object[0]));
+        clock.advance(1);
+        assertEquals("2024-05-01T10:15:31Z", runtime.derive(new Object[0]));
+        assertEquals("10:15:31.000", runtime.derive(new Object[] {"HH:mm:ss.SSS"}));
+        clock.advance(42);
+        assertEquals("10:15:31.042", runtime.derive(new Object[] {"HH:mm:ss.SSS"}));
+        assertEquals("2024-05-01", runtime.derive(new Object[] {"yyyy-MM-dd"}));
+    }
+
+    @Test
+    public void dateUtcPrintsTheClockPrecisionLikeIsoInstant() {
+        SteppingClock clock = new SteppingClock(Instant.parse("2024-05-01T10:15:30Z"));
+        BuiltinFunctionRuntime runtime = runtime("date_utc", clock);
+        for (long nanos : new long[] {0, 5_000_000, 250_000_000, 123_000, 123_456_789, 1}) {
+            clock.instant = Instant.parse("2024-05-01T10:15:30Z").plusNanos(nanos);
+            assertEquals(DateTimeFormatter.ISO_INSTANT.format(clock.instant), runtime.derive(new Object[0]));
+        }
+        assertEquals(clock.millis(), runtime("date_now_millis", clock).derive(new Object[0]));
+    }
+
+    @Test
+    public void timestampUnitIgnoresQuotedLetters() {
+        assertEquals(1_000L, TimestampCache.unitMillis("yyyy-MM-dd'T'HH:mm:ss'Z'"));
+        assertEquals(86_400_000L, TimestampCache.unitMillis("yyyy-MM-dd' at noon'"));
+        assertEquals(60_000L, TimestampCache.unitMillis("HH:mm"));
+        assertEquals(1L, TimestampCache.unitMillis("ss.SSS"));
+        assertEquals(0L, TimestampCache.unitMillis("ss.SSSSSS"));
+        assertEquals(0L, TimestampCache.unitMillis("n"));
+    }
+
     @Test
     public void generatesPosIntWithLength() {
         BuiltinFunctionRuntime runtime = runtime("pos_int");
-        Object value = runtime.derive(List.of(3));
+        Object value = runtime.derive(new Object[] {3});
         assertEquals(3, String.valueOf(value).length());
     }
 
     @Test
     public void concatenatesStrings() {
         BuiltinFunctionRuntime runtime = runtime("concat");
-        Object value = runtime.derive(List.of("a", "b", 1));
+        Object value = runtime.derive(new Object[] {"a", "b", 1});
         assertEquals("ab1", value);
     }
 
     @Test
     public void lookupReturnsDefault() {
-        BuiltinFunctionRuntime runtime = runtime("lookup", List.of(Map.of("A", "Alpha"), "Unknown"));
-        Object value = runtime.derive(List.of("B"));
+        BuiltinFunctionRuntime runtime = runtime("lookup");
+        Object value = runtime.derive(new Object[] {"B", Map.of("A", "Alpha"), "Unknown"});
         assertEquals("Unknown", value);
     }
 
     @Test
     public void lookupThrowsOnBadMap() {
         BuiltinFunctionRuntime runtime = runtime("lookup");
-        assertThrows(IllegalArgumentException.class, () -> runtime.derive(List.of("A", "not-map")));
+        assertThrows(IllegalArgumentException.class, () -> runtime.derive(new Object[] {"A", "not-map"}));
     }
 
     @Test
     public void addHandlesNumbers() {
         BuiltinFunctionRuntime runtime = runtime("add");
-        Object value = runtime.derive(List.of(1, 2.5, "3"));
+        Object value = runtime.derive(new Object[] {1, 2.5, "3"});
         assertEquals(6.5, ((Number) value).doubleValue(), 0.0001);
     }
 
+    @Test
+    public void integralArithmeticStaysLong() {
+        assertEquals(6L, runtime("add").derive(new Object[] {1, 2L, (short) 3}));
+        assertEquals(-4L, runtime("subtract").derive(new Object[] {1, 2L, 3}));
+        assertEquals(24L, runtime("multiply").derive(new Object[] {2, 3L, 4}));
+        assertEquals(-7L, runtime("min").derive(new Object[] {3, -7L, 5}));
+        assertEquals(5L, runtime("max").derive(new Object[] {3, -7L, 5}));
+        assertEquals(7L, runtime("abs").derive(new Object[] {-7}));
+    }
+
+    @Test
+    public void integralOverflowFallsBackToDecimal() {
+        assertEquals(9.223372036854775807E18 + 1, runtime("add").derive(new Object[] {Long.MAX_VALUE, 1}));
+        assertEquals(-9.223372036854775808E18 - 1, runtime("subtract").derive(new Object[] {Long.MIN_VALUE, 1}));
+        assertEquals(1.8446744073709552E19, runtime("multiply").derive(new Object[] {Long.MAX_VALUE, 2}));
+        assertEquals(9.223372036854775808E18, runtime("abs").derive(new Object[] {Long.MIN_VALUE}));
+        assertEquals(2L, runtime("add").derive(new Object[] {Long.MAX_VALUE, Long.MIN_VALUE, 3}));
+    }
+
+    @Test
+    public void fractionalArgumentsUseDecimalArithmetic() {
+        assertEquals(0.3, runtime("add").derive(new Object[] {0.1, 0.2}));
+        assertEquals(3L, runtime("multiply").derive(new Object[] {1.5, 2}));
+        assertEquals(1.5, runtime("max").derive(new Object[] {1, 1.5}));
+    }
+
+    @Test
+    public void arityEntryPointsMatchGeneralPath() {
+        assertEquals("", runtime("concat").derive(new Object[0]));
+        assertEquals("1", runtime("concat").derive(new Object[] {1}));
+        assertEquals("ab", runtime("concat").derive(new Object[] {"a", "b"}));
+        assertEquals("abc", runtime("concat").derive(new Object[] {"a", "b", "c"}));
+        assertEquals("ABC", runtime("uppercase").derive(new Object[] {"abc"}));
+        assertEquals("  7", runtime("pad_left").derive(new Object[] {"7", 3}));
+        assertEquals("007", runtime("pad_left").derive(new Object[] {"7", 3, "0"}));
+        assertEquals(-1L, runtime("subtract").derive(new Object[] {2, 3}));
+        assertEquals(2.5, runtime("min").derive(new Object[] {3, 2.5}));
+        assertEquals(3L, runtime("max").derive(new Object[] {3}));
+        assertEquals("Alpha", runtime("lookup").derive(new Object[] {"A", Map.of("A", "Alpha")}));
+        assertThrows(IllegalArgumentException.class, () -> runtime("add").derive(new Object[] {1}));
+        assertThrows(IllegalArgumentException.class, () -> runtime("uppercase").derive(new Object[0]));
+    }
+
     @Test
     public void divideRequiresNonZero() {
         BuiltinFunctionRuntime runtime = runtime("divide");
-        assertThrows(ArithmeticException.class, () -> runtime.derive(List.of(4, 0)));
+        assertThrows(ArithmeticException.class, () -> runtime.derive(new Object[] {4, 0}));
     }
 
     private BuiltinFunctionRuntime runtime(String name) {
-        return runtime(name, List.of());
+        return new BuiltinFunctionRuntime(new FunctionDef(0, name, FunctionKind.BUILTIN, name, List.of(), null));
     }
 
-    private BuiltinFunctionRuntime runtime(String name, List<Object> args) {
-        FunctionDef def = new FunctionDef(0, name, FunctionKind.BUILTIN, name, args, null);
-        return new BuiltinFunctionRuntime(def);
+    private BuiltinFunctionRuntime runtime(String name, Clock clock) {
+        return new BuiltinFunctionRuntime(new FunctionDef(0, name, FunctionKind.BUILTIN, name, List.of(), null), UuidSource.SECURE, clock);
+    }
+
+    private BuiltinFunctionRuntime runtime(String name, UuidSource uuids) {
+        return new BuiltinFunctionRuntime(new FunctionDef(0, name, FunctionKind.BUILTIN, name, List.of(), null), uuids);
+    }
+
+    private BuiltinFunctionRuntime runtime(String name, UuidSource uuids, Clock clock) {
+        return new BuiltinFunctionRuntime(new FunctionDef(0, name, FunctionKind.BUILTIN, name, List.of(), null), uuids, clock);
+    }
+
+    private static final class SteppingClock extends Clock {
+        private Instant instant;
+
+        SteppingClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(long millis) {
+            instant = instant.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
     }
 }
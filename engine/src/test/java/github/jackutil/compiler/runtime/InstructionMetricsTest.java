@@ -58,7 +58,7 @@ public class InstructionMetricsTest {
         InstructionMetrics sharedMetrics = InstructionMetricsCollector.collect(compiled, "sharedConst");
 
         assertEquals(10, rootMetrics.totalOpcodes());
-        assertEquals(2, rootMetrics.opcodeCount(OpCode.WRITE_LITERAL));
+        assertEquals(2, rootMetrics.opcodeCount(OpCode.WRITE_CONST));
         assertEquals(2, rootMetrics.opcodeCount(OpCode.WRITE_MAPPING));
         assertEquals(2, rootMetrics.literalPoolSize());
         assertEquals(4, rootMetrics.fieldPoolSize());
@@ -67,11 +67,11 @@ public class InstructionMetricsTest {
         assertFalse(rootMetrics.hasInlineMapping(mappingId(compiled, "singleUse")));
 
         assertEquals(1, singleUseMetrics.totalOpcodes());
-        assertEquals(1, singleUseMetrics.opcodeCount(OpCode.WRITE_LITERAL));
+        assertEquals(1, singleUseMetrics.opcodeCount(OpCode.WRITE_CONST));
         assertEquals(0, singleUseMetrics.opcodeCount(OpCode.WRITE_MAPPING));
 
         assertEquals(1, sharedMetrics.totalOpcodes());
-        assertEquals(1, sharedMetrics.opcodeCount(OpCode.WRITE_LITERAL));
+        assertEquals(1, sharedMetrics.opcodeCount(OpCode.WRITE_CONST));
         assertEquals(0, sharedMetrics.opcodeCount(OpCode.WRITE_MAPPING));
     }
 
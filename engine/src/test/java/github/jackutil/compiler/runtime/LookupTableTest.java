@@ -0,0 +1,78 @@
+package github.jackutil.compiler.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import github.jackutil.compiler.CompiledMapping;
+import github.jackutil.compiler.ConfigCompiler;
+import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.resolved.ResolvedVariable;
+
+public class LookupTableTest {
+
+    @Test
+    public void findsEveryStringKeyLikeTheMap() {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 1_000; i++) {
+            entries.put("code" + i, "value" + i);
+        }
+        // "Aa" and "BB" share a String hash.
+        entries.put("Aa", "first");
+        entries.put("BB", "second");
+        LookupTable table = LookupTable.of(entries);
+        assertEquals(entries.size(), table.size());
+        for (Map.Entry<String, Object> entry : entries.entrySet()) {
+            assertEquals(entry.getValue(), table.get(entry.getKey()));
+        }
+        assertNull(table.get("code1000"));
+        assertNull(table.get(""));
+        assertNull(table.get(7));
+    }
+
+    @Test
+    public void leavesOutNullValuesAndRejectsNonStringKeys() {
+        Map<Object, Object> entries = new HashMap<>();
+        entries.put("1", "one");
+        entries.put("2", null);
+        LookupTable table = LookupTable.of(entries);
+        assertEquals(1, table.size());
+        assertNull(table.get("2"));
+        assertEquals("one", table.get("1"));
+
+        entries.put(3, "three");
+        assertNull(LookupTable.of(entries));
+    }
+
+    @Test
+    public void compilesLookupArgumentsForThePlanOnly() throws Exception {
+        CompiledMapping compiled;
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("valid/builtins.json")) {
+            compiled = ConfigCompiler.compile(in);
+        }
+        List<ResolvedVariable> variables = compiled.config().variables();
+        int color = variables.stream()
+            .filter(variable -> variable.name().equals("color"))
+            .findFirst()
+            .orElseThrow()
+            .id();
+        FunctionExecutor functions = new FunctionExecutor(compiled.config().functions());
+        Object[][] arguments = functions.deriveArguments(variables);
+        assertEquals("B", arguments[color][0]);
+        assertTrue(arguments[color][1] instanceof LookupTable);
+        assertEquals("Unknown", arguments[color][2]);
+        // The resolved config is public and keeps the call arguments and the function's parsed map.
+        assertEquals(List.of("B"), variables.get(color).deriveArgs());
+        FunctionDef lookup = compiled.config().functions().get(variables.get(color).deriveFunctionId());
+        assertEquals(Map.of("A", "Amber", "B", "Blue"), lookup.args().get(0));
+        assertEquals("Blue", functions.derive(variables.get(color).deriveFunctionId(), arguments[color]));
+    }
+}
@@ -0,0 +1,54 @@
+package github.jackutil.compiler.runtime;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class NameIndexTest {
+
+    @Test
+    public void mapsEveryNameToItsPosition() {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            names.add("field" + i);
+        }
+        NameIndex index = NameIndex.of(names);
+        assertEquals(names.size(), index.size());
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(i, index.indexOf(names.get(i)));
+        }
+        assertEquals(-1, index.indexOf("field1000"));
+        assertEquals(-1, index.indexOf("field"));
+        assertEquals(-1, index.indexOf(""));
+    }
+
+    @Test
+    public void looksUpNonAsciiNames() {
+        List<String> names = List.of("gr\u00f6\u00dfe", "\u540d\u524d", "emoji\ud83d\ude00", "plain");
+        NameIndex index = NameIndex.of(names);
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(i, index.indexOf(new String(names.get(i).toCharArray())));
+        }
+        assertEquals(-1, index.indexOf("emoji\ud83d"));
+    }
+
+    @Test
+    public void separatesNamesWithEqualStringHashes() {
+        // "Aa" and "BB" share a String hash, so displacement alone cannot tell them apart.
+        NameIndex index = NameIndex.of(List.of("Aa", "x", "BB", "Aa"));
+        assertEquals(3, index.size());
+        assertEquals(0, index.indexOf("Aa"));
+        assertEquals(2, index.indexOf("BB"));
+        assertEquals(1, index.indexOf("x"));
+    }
+
+    @Test
+    public void emptyIndexMissesEverything() {
+        NameIndex index = NameIndex.of(List.of());
+        assertEquals(0, index.size());
+        assertEquals(-1, index.indexOf("id"));
+    }
+}
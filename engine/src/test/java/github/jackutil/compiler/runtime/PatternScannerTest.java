@@ -0,0 +1,106 @@
+package github.jackutil.compiler.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class PatternScannerTest {
+    private static final List<String> SCANNED = List.of(
+        "(?i)^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$",
+        "^[0-9A-Z]+$",
+        "^BPNS[0-9A-Z]{8}$",
+        "^[A-Z]{3}$",
+        "^[A-Z_]+$",
+        "[A-Z]*[0-9A-Z]{2}",
+        "^ab?c*\\d{2,4}x$",
+        "^-?\\d+\\.\\d{1,2}$",
+        "^[a-]?[+\\-]{0,3}\\w*$",
+        "(?i)^bp[ns]\\s?[a-c]+$",
+        "^$",
+        "x{0}y*"
+    );
+    private static final List<String> FALLBACK = List.of(
+        "^(manufacturerId|batchId|customKey:\\w+)$",
+        "^[^0-9]+$",
+        "^.{3}$",
+        "^[A-Z]+?$",
+        "^\\p{Lu}+$",
+        "^[a-z&&[^x]]+$",
+        "^\u00e4+$",
+        "^[0-9-A]$",
+        "[A-Z]{70,}[0-9]{2,}"
+    );
+
+    @Test
+    public void compilesConstraintPatternsFromTheSampleConfig() {
+        for (String regex : SCANNED) {
+            assertNotNull(regex, PatternScanner.compile(Pattern.compile(regex)));
+        }
+    }
+
+    @Test
+    public void leavesUnsupportedConstructsToTheRegexEngine() {
+        for (String regex : FALLBACK) {
+            assertNull(regex, PatternScanner.compile(Pattern.compile(regex)));
+        }
+        assertNull(PatternScanner.compile(Pattern.compile("^[A-Z]+$", Pattern.MULTILINE)));
+    }
+
+    @Test
+    public void agreesWithTheRegexEngine() {
+        SplittableRandom random = new SplittableRandom(42);
+        String alphabet = "abcxyzABCFXYZ0129-+._ \t\nBPNS\u00e4\u03a9";
+        for (String regex : SCANNED) {
+            Pattern pattern = Pattern.compile(regex);
+            PatternScanner scanner = PatternScanner.compile(pattern);
+            for (String input : inputs(random, alphabet)) {
+                assertEquals(regex + " on '" + input + "'", pattern.matcher(input).matches(), scanner.matches(input));
+            }
+        }
+    }
+
+    @Test
+    public void honoursTheCaseInsensitiveFlagForAsciiOnly() {
+        PatternScanner scanner = PatternScanner.compile(Pattern.compile("^[a-f]+k$", Pattern.CASE_INSENSITIVE));
+        assertEquals(true, scanner.matches("abCDeFK"));
+        assertEquals(false, scanner.matches("abg"));
+        // The Kelvin sign folds to 'k' only with UNICODE_CASE.
+        assertEquals(false, scanner.matches("ab\u212A"));
+    }
+
+    private static List<String> inputs(SplittableRandom random, String alphabet) {
+        List<String> inputs = new ArrayList<>(List.of(
+            "",
+            "550e8400-e29b-41d4-a716-446655440000",
+            "550E8400-E29B-41D4-A716-44665544000G",
+            "BPNS0123ABCD",
+            "BPNS0123ABC",
+            "ABC",
+            "A_B",
+            "AB9",
+            "abcc12x",
+            "ac1234x",
+            "-12.50",
+            "a--w_9",
+            "BPN AC",
+            "yyy",
+            "ABC\n"
+        ));
+        for (int i = 0; i < 2_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(14);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            inputs.add(builder.toString());
+        }
+        return inputs;
+    }
+}
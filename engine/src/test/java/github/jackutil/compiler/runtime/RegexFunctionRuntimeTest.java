@@ -0,0 +1,80 @@
+package github.jackutil.compiler.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import github.jackutil.compiler.ir.FunctionDef;
+import github.jackutil.compiler.ir.enums.FunctionKind;
+
+public class RegexFunctionRuntimeTest {
+    private static final String KEYS = "^(manufacturerId|batchId|customKey:\\w+)$";
+
+    @Test
+    public void validatesPatternsWithoutAScannerThroughTheRegexEngine() {
+        RegexFunctionRuntime runtime = runtime(KEYS);
+        runtime.validate("batchId");
+        runtime.validate("customKey:lot_7");
+        runtime.validate(null);
+        IllegalStateException failure = assertThrows(IllegalStateException.class, () -> runtime.validate("customKey:"));
+        assertEquals("Value 'customKey:' does not match pattern " + KEYS, failure.getMessage());
+        // The reused matcher must not carry the failed match over to the next value.
+        runtime.validate("manufacturerId");
+    }
+
+    @Test
+    public void reusedMatchersStayConfinedToTheirThread() throws Exception {
+        RegexFunctionRuntime runtime = runtime(KEYS);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> results = executor.invokeAll(List.of(
+                () -> check(runtime, "batchId", true),
+                () -> check(runtime, "customKey:a1", true),
+                () -> check(runtime, "batchIds", false),
+                () -> check(runtime, "customKey:-", false)
+            ));
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(10_000), result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void validatesScannedPatternsLikeTheRegexEngine() {
+        RegexFunctionRuntime runtime = runtime("^BPNS[0-9A-Z]{8}$");
+        runtime.validate("BPNS0000000A");
+        assertThrows(IllegalStateException.class, () -> runtime.validate("BPNS0000000a"));
+        assertThrows(IllegalStateException.class, () -> runtime.validate(42));
+    }
+
+    private static int check(RegexFunctionRuntime runtime, String value, boolean valid) {
+        int agreed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            boolean passed;
+            try {
+                runtime.validate(value);
+                passed = true;
+            } catch (IllegalStateException ex) {
+                passed = false;
+            }
+            if (passed == valid) {
+                agreed++;
+            }
+        }
+        return agreed;
+    }
+
+    private static RegexFunctionRuntime runtime(String regex) {
+        Pattern pattern = Pattern.compile(regex);
+        return new RegexFunctionRuntime(new FunctionDef(0, "regex", FunctionKind.REGEX, pattern, List.of(), null));
+    }
+}
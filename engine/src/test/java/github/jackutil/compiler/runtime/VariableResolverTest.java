@@ -1,12 +1,20 @@
 package github.jackutil.compiler.runtime;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import org.junit.Test;
 
 import github.jackutil.compiler.diagnostics.MappingException;
@@ -42,6 +50,33 @@ public class VariableResolverTest {
         assertEquals("BA", resolver.valueOf(0));
     }
 
+    @Test
+    public void deferredSnapshotKeepsItsBindingAcrossRebinds() {
+        VariableResolver resolver = resolver(List.of(variable("id", ValueType.STRING, true, false, new int[0], null, null)));
+        resolver.bindPayload(Map.of("id", "first"));
+        Supplier<Map<String, Object>> first = resolver.deferSnapshot();
+        assertSame(first, resolver.deferSnapshot());
+        resolver.bindPayload(Map.of("id", "second"));
+        Supplier<Map<String, Object>> second = resolver.deferSnapshot();
+        assertEquals(Map.of("id", "second"), second.get());
+        resolver.bindPayload(Map.of("id", "third"));
+        assertEquals(Map.of("id", "first"), first.get());
+        assertEquals(Map.of("id", "second"), second.get());
+        assertEquals("third", resolver.valueOf(0));
+    }
+
+    @Test
+    public void releaseDropsBindingButKeepsCapturedSnapshot() {
+        VariableResolver resolver = resolver(List.of(variable("id", ValueType.STRING, true, false, new int[0], null, null)));
+        resolver.bindPayload(Map.of("id", "first"));
+        Supplier<Map<String, Object>> snapshot = resolver.deferSnapshot();
+        resolver.release();
+        assertThrows(IllegalStateException.class, resolver::snapshotValues);
+        assertEquals(Map.of("id", "first"), snapshot.get());
+        resolver.bindPayload(Map.of("id", "second"));
+        assertEquals("second", resolver.valueOf(0));
+    }
+
     @Test
     public void validatesConstraints() {
         FunctionExecutor executor = new FunctionExecutor(List.of(new FunctionDef(0, "regex", FunctionKind.REGEX, Pattern.compile("^[A-Z]+$"), List.of(), null)));
@@ -58,6 +93,65 @@ public class VariableResolverTest {
         assertThrows(MappingException.class, () -> resolver.valueOf(0));
     }
 
+    @Test
+    public void rebindingInvalidatesResolvedValues() {
+        VariableResolver resolver = resolver(List.of(variable("id", ValueType.STRING, false, false, new int[0], null, null)));
+        resolver.bindPayload(Map.of("id", "ABC"));
+        assertEquals("ABC", resolver.valueOf(0));
+        resolver.bindPayload(Map.of("id", "DEF"));
+        assertEquals("DEF", resolver.valueOf(0));
+        resolver.bindPayload(Map.of());
+        assertNull(resolver.valueOf(0));
+    }
+
+    @Test
+    public void coercesIntegerPayloadsToLong() {
+        VariableResolver resolver = resolver(List.of(variable("qty", ValueType.INTEGER, true, false, new int[0], null, null)));
+        resolver.bindPayload(Map.of("qty", 7));
+        assertEquals(7L, resolver.valueOf(0));
+        resolver.bindPayload(Map.of("qty", "12"));
+        assertEquals(12L, resolver.valueOf(0));
+        resolver.bindPayload(Map.of("qty", 1.5));
+        assertThrows(MappingException.class, () -> resolver.valueOf(0));
+    }
+
+    @Test
+    public void bindsOnlyNamedFieldsFromParser() throws Exception {
+        List<ResolvedVariable> variables = List.of(
+            variable("id", ValueType.STRING, true, false, new int[0], null, null),
+            variable("qty", ValueType.INTEGER, true, false, new int[0], null, null),
+            variable("tags", ValueType.ARRAY, false, false, new int[0], null, null),
+            variable("note", ValueType.STRING, false, false, new int[0], null, null));
+        VariableResolver resolver = resolver(variables);
+        PayloadExtractor extractor = new PayloadExtractor(variables);
+        String payload = "{\"skip\":{\"id\":\"nested\",\"deep\":[[1],{\"qty\":2}]},\"qty\":7,"
+            + "\"id\":\"ABC\",\"tags\":[1,\"a\",{\"b\":true}],\"note\":null}";
+        try (JsonParser parser = new JsonFactory().createParser(payload)) {
+            resolver.bindPayload(parser, extractor);
+            assertEquals(JsonToken.END_OBJECT, parser.currentToken());
+        }
+        assertEquals("ABC", resolver.valueOf(0));
+        assertEquals(7L, resolver.valueOf(1));
+        assertEquals(List.of(1, "a", Map.of("b", true)), resolver.valueOf(2));
+        assertNull(resolver.valueOf(3));
+
+        try (JsonParser parser = new JsonFactory().createParser("{\"id\":\"DEF\",\"qty\":\"12\"}")) {
+            resolver.bindPayload(parser, extractor);
+        }
+        assertEquals("DEF", resolver.valueOf(0));
+        assertEquals(12L, resolver.valueOf(1));
+        assertNull(resolver.valueOf(2));
+    }
+
+    @Test
+    public void rejectsNonObjectPayloadFromParser() throws Exception {
+        List<ResolvedVariable> variables = List.of(variable("id", ValueType.STRING, false, false, new int[0], null, null));
+        VariableResolver resolver = resolver(variables);
+        try (JsonParser parser = new JsonFactory().createParser("[1]")) {
+            assertThrows(JsonParseException.class, () -> resolver.bindPayload(parser, new PayloadExtractor(variables)));
+        }
+    }
+
     private VariableResolver resolver(List<ResolvedVariable> variables) {
         FunctionExecutor executor = new FunctionExecutor(List.of(new FunctionDef(0, "noop", FunctionKind.BUILTIN, "concat", List.of(), null)));
         return new VariableResolver(variables, executor);
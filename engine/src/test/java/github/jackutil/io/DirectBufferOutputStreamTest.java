@@ -0,0 +1,108 @@
+package github.jackutil.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectBufferOutputStreamTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    // Small buffers so a modest payload spans several gathering batches.
+    private final DirectBufferPool pool = new DirectBufferPool(64, 8);
+
+    @Test
+    public void writesThroughGatheringChannel() throws Exception {
+        byte[] data = randomBytes(10_000);
+        Path path = folder.newFile().toPath();
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        try (DirectBufferOutputStream out = new DirectBufferOutputStream(channel, pool, true)) {
+            writeInPieces(out, data);
+        }
+        assertFalse(channel.isOpen());
+        assertArrayEquals(data, Files.readAllBytes(path));
+    }
+
+    @Test
+    public void writesThroughPlainChannelAndLeavesItOpen() throws Exception {
+        byte[] data = randomBytes(5_000);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        var channel = Channels.newChannel(target);
+        try (DirectBufferOutputStream out = new DirectBufferOutputStream(channel, pool, false)) {
+            writeInPieces(out, data);
+        }
+        assertTrue(channel.isOpen());
+        assertArrayEquals(data, target.toByteArray());
+    }
+
+    @Test
+    public void handsBuffersToSink() throws Exception {
+        byte[] data = randomBytes(3_000);
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        try (DirectBufferOutputStream out = new DirectBufferOutputStream(buffer -> {
+            assertTrue(buffer.isDirect());
+            byte[] chunk = new byte[buffer.remaining()];
+            buffer.get(chunk);
+            target.write(chunk);
+        }, pool)) {
+            writeInPieces(out, data);
+            out.flush();
+            assertArrayEquals(data, target.toByteArray());
+        }
+    }
+
+    @Test
+    public void rejectsWritesAfterClose() throws Exception {
+        DirectBufferOutputStream out = new DirectBufferOutputStream(buffer -> { }, pool);
+        out.close();
+        assertThrows(IOException.class, () -> out.write(1));
+    }
+
+    @Test
+    public void poolRecyclesReleasedBuffers() {
+        ByteBuffer buffer = pool.acquire();
+        buffer.put((byte) 1);
+        pool.release(buffer);
+        ByteBuffer again = pool.acquire();
+        assertSame(buffer, again);
+        assertTrue(again.position() == 0 && again.remaining() == 64);
+    }
+
+    private static void writeInPieces(DirectBufferOutputStream out, byte[] data) throws IOException {
+        int offset = 0;
+        int step = 1;
+        while (offset < data.length) {
+            if (step % 5 == 0) {
+                out.write(data[offset++]);
+            } else {
+                int length = Math.min(step * 7, data.length - offset);
+                out.write(data, offset, length);
+                offset += length;
+            }
+            step++;
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] data = new byte[length];
+        new Random(42).nextBytes(data);
+        return data;
+    }
+}
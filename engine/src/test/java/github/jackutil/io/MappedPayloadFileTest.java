@@ -0,0 +1,136 @@
+package github.jackutil.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MappedPayloadFileTest {
+
+    private static final int RECORDS = 500;
+    // Small windows force ranges and boundary scans across several mappings.
+    private static final int WINDOW_BYTES = 64;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    public void splitsLinesIntoWholeRecordRanges() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < RECORDS; i++) {
+            content.append(record(i)).append('\n');
+        }
+        try (MappedPayloadFile file = open(content.toString(), MappedPayloadFile.Layout.NDJSON)) {
+            List<MappedPayloadFile.Range> ranges = file.split(200);
+            assertTrue(ranges.size() > 1);
+            assertContiguous(ranges, 0, file.size());
+            assertEquals(expectedIds(), readIds(file, ranges));
+        }
+    }
+
+    @Test
+    public void splitsArrayElementsWithoutParsing() throws Exception {
+        StringBuilder content = new StringBuilder("  [\n");
+        for (int i = 0; i < RECORDS; i++) {
+            content.append(i > 0 ? ",\n" : "").append(record(i));
+        }
+        content.append("\n]\n");
+        try (MappedPayloadFile file = open(content.toString(), MappedPayloadFile.Layout.JSON_ARRAY)) {
+            List<MappedPayloadFile.Range> ranges = file.split(200);
+            assertTrue(ranges.size() > 1);
+            assertEquals(expectedIds(), readIds(file, ranges));
+        }
+    }
+
+    @Test
+    public void handlesEmptyArray() throws Exception {
+        try (MappedPayloadFile file = open(" [ ] ", MappedPayloadFile.Layout.JSON_ARRAY)) {
+            assertEquals(List.of(), file.split(200));
+        }
+    }
+
+    @Test
+    public void rejectsMalformedArrays() throws Exception {
+        try (MappedPayloadFile file = open("{\"id\":\"a\"}", MappedPayloadFile.Layout.JSON_ARRAY)) {
+            assertThrows(JsonParseException.class, () -> file.split(200));
+        }
+        try (MappedPayloadFile file = open("[{\"id\":\"a\"}", MappedPayloadFile.Layout.JSON_ARRAY)) {
+            assertThrows(JsonParseException.class, () -> file.split(200));
+        }
+    }
+
+    @Test
+    public void rejectsEmptyArrayElements() throws Exception {
+        for (String content : List.of("[{\"id\":\"a\"},]", "[{\"id\":\"a\"},\n ]", "[,{\"id\":\"a\"}]",
+                "[{\"id\":\"a\"},,{\"id\":\"b\"}]", "[,]")) {
+            try (MappedPayloadFile file = open(content, MappedPayloadFile.Layout.JSON_ARRAY)) {
+                // A split target of one byte cuts a range at every comma, where the re-wrapping parser cannot see it.
+                assertThrows(content, JsonParseException.class, () -> file.split(1));
+            }
+        }
+        try (MappedPayloadFile file = open("[[1,[]],\"a,]\",{\"b\":[2,3]}]", MappedPayloadFile.Layout.JSON_ARRAY)) {
+            assertEquals(3, file.split(1).size());
+        }
+    }
+
+    private static String record(int index) {
+        // Separators inside strings must not be taken for record boundaries.
+        return "{\"id\":" + index + ",\"note\":\"a, [b] {c} \\\"d\\\" \\\\\",\"tags\":[1,{\"x\":[2]}]}";
+    }
+
+    private static List<Integer> expectedIds() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    private List<Integer> readIds(MappedPayloadFile file, List<MappedPayloadFile.Range> ranges) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (MappedPayloadFile.Range range : ranges) {
+            try (JsonParser parser = file.openParser(jsonFactory, range)) {
+                for (JsonToken token = parser.nextToken(); token == JsonToken.START_OBJECT; token = parser.nextToken()) {
+                    parser.nextToken();
+                    parser.nextToken();
+                    ids.add(parser.getIntValue());
+                    while (parser.nextToken() != JsonToken.END_OBJECT) {
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static void assertContiguous(List<MappedPayloadFile.Range> ranges, long start, long end) {
+        long position = start;
+        for (MappedPayloadFile.Range range : ranges) {
+            assertEquals(position, range.start());
+            position = range.end();
+        }
+        assertEquals(end, position);
+    }
+
+    private MappedPayloadFile open(String content, MappedPayloadFile.Layout layout) throws Exception {
+        Path path = folder.newFile().toPath();
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return MappedPayloadFile.open(path, layout, WINDOW_BYTES);
+    }
+}